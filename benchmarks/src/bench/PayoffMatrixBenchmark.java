@@ -0,0 +1,138 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the PayoffMatrix hot paths across matrix sizes and payoff
+ * distributions. Run through BenchmarkRunner to also get allocation rates
+ * from the gc profiler.
+ *
+ * Distributions: "uniform" draws payoffs from the whole int range (ties
+ * almost never happen), "narrow" draws them from 0-3 (lots of ties), and
+ * "coordination" gives both players a high payoff on the diagonal and
+ * uniform noise elsewhere (one pure equilibrium per diagonal cell).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PayoffMatrixBenchmark {
+    // PayoffMatrix is in the unnamed package, which classes in a named package
+    // (and JMH requires one) cannot refer to, so its methods are bound once here.
+    // Calls through static final method handles get inlined like direct calls.
+    private static final MethodHandle NEW_MATRIX;
+    private static final MethodHandle FIND_PURE;
+    private static final MethodHandle FIND_BEST_RESPONSE;
+    private static final MethodHandle FIND_MIXED;
+    private static final MethodHandle SIMULATE_DEVIATION;
+
+    static {
+        try {
+            Class<?> matrixClass = Class.forName("PayoffMatrix");
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            NEW_MATRIX = lookup.findConstructor(matrixClass,
+                            MethodType.methodType(void.class, int.class, int.class, int[].class, int[].class))
+                    .asType(MethodType.methodType(Object.class, int.class, int.class, int[].class, int[].class));
+            FIND_PURE = lookup.findVirtual(matrixClass, "findPureNashEquilibrium",
+                            MethodType.methodType(ArrayList.class))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            FIND_BEST_RESPONSE = lookup.findVirtual(matrixClass, "findBestResponse",
+                            MethodType.methodType(Integer.class, int.class, int.class))
+                    .asType(MethodType.methodType(Object.class, Object.class, int.class, int.class));
+            FIND_MIXED = lookup.findVirtual(matrixClass, "findMixedNashEquilibrium",
+                            MethodType.methodType(ArrayList.class))
+                    .asType(MethodType.methodType(Object.class, Object.class));
+            SIMULATE_DEVIATION = lookup.findVirtual(matrixClass, "simulateDeviationPath",
+                            MethodType.methodType(List.class, int.class, int.class, int.class, int.class))
+                    .asType(MethodType.methodType(Object.class, Object.class, int.class, int.class,
+                            int.class, int.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @Param({"2", "3", "16", "128", "512"})
+    public int size;
+
+    @Param({"uniform", "narrow", "coordination"})
+    public String distribution;
+
+    private Object matrix;
+    private int move;
+    private int startRow;
+    private int startCol;
+    private int deviationMove;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Throwable {
+        SplittableRandom random = new SplittableRandom(42);
+        int cells = size * size;
+        int[] p1Payoffs = new int[cells];
+        int[] p2Payoffs = new int[cells];
+        for (int i = 0; i < cells; i++) {
+            switch (distribution) {
+                case "uniform":
+                    p1Payoffs[i] = random.nextInt();
+                    p2Payoffs[i] = random.nextInt();
+                    break;
+                case "narrow":
+                    p1Payoffs[i] = random.nextInt(4);
+                    p2Payoffs[i] = random.nextInt(4);
+                    break;
+                case "coordination":
+                    boolean diagonal = i / size == i % size;
+                    p1Payoffs[i] = diagonal ? 1000 : random.nextInt(100);
+                    p2Payoffs[i] = diagonal ? 1000 : random.nextInt(100);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown distribution " + distribution);
+            }
+        }
+        matrix = NEW_MATRIX.invokeExact(size, size, p1Payoffs, p2Payoffs);
+
+        // start deviations from an equilibrium when there is one, like the GUI does
+        @SuppressWarnings("unchecked")
+        List<List<Integer>> equilibria = (List<List<Integer>>) (Object) FIND_PURE.invokeExact(matrix);
+        if (equilibria != null) {
+            startRow = equilibria.get(0).get(0);
+            startCol = equilibria.get(0).get(1);
+        } else {
+            startRow = 1;
+            startCol = 1;
+        }
+        deviationMove = startRow % size + 1;
+        move = 1;
+    }
+
+    @Benchmark
+    public Object findPureNashEquilibrium() throws Throwable {
+        return FIND_PURE.invokeExact(matrix);
+    }
+
+    @Benchmark
+    public Object findBestResponse() throws Throwable {
+        // cycle through the moves so every row/column gets scanned
+        move = move == size ? 1 : move + 1;
+        return FIND_BEST_RESPONSE.invokeExact(matrix, move, 1 + (move & 1));
+    }
+
+    @Benchmark
+    public Object findMixedNashEquilibrium() throws Throwable {
+        return FIND_MIXED.invokeExact(matrix);
+    }
+
+    @Benchmark
+    public Object simulateDeviationPath() throws Throwable {
+        return SIMULATE_DEVIATION.invokeExact(matrix, startRow, startCol, 1, deviationMove);
+    }
+}
@@ -0,0 +1,217 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Analyzes a large file of games without loading it all into memory.
+ *
+ * Each input line holds one game: the number of rows, the number of
+ * columns, then P1's payoffs and P2's payoffs, each listed left to right,
+ * top to bottom, all separated by whitespace. Blank lines and lines starting
+ * with '#' are skipped. Lines are read in batches, each batch is solved on a
+ * worker thread, and results are written back in input order, one line per
+ * game:
+ *
+ *   game  pure equilibria  P1's best responses  P2's best responses  mixed p q
+ *
+ * separated by tabs. Pure equilibria are listed as "row,col" pairs, best
+ * responses give the best move against each of the other player's moves,
+ * and "-" marks a missing result. A game that is malformed, has more than
+ * MAX_CELLS squares or fails to analyze gets "game error reason" instead.
+ * At most a fixed number of batches are in flight at once, so memory use
+ * does not grow with the size of the input.
+ */
+public class BatchEvaluator {
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+    // larger games are rejected, so one bad line cannot exhaust a worker's memory
+    public static final int MAX_CELLS = 1 << 22;
+
+    private final int batchSize;
+    private final int maxInFlight;
+    private final ExecutorService workers;
+
+    /** Creates an evaluator that uses every available core. */
+    public BatchEvaluator() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE);
+    }
+
+    /** Creates an evaluator with the given number of worker threads and games per batch. */
+    public BatchEvaluator(int numThreads, int batchSize) {
+        this.batchSize = batchSize;
+        // enough batches queued to keep every worker busy while the writer catches up
+        this.maxInFlight = numThreads * 2;
+        this.workers = Executors.newFixedThreadPool(numThreads, runnable -> {
+            Thread thread = new Thread(runnable, "batch-evaluator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Reads every game from in and writes one result line per game to out,
+     * in the same order. Returns the number of games processed.
+     */
+    public long evaluate(BufferedReader in, Writer out) throws IOException {
+        ArrayDeque<Future<String>> pending = new ArrayDeque<>();
+        long gameIndex = 0;
+        List<String> batch = new ArrayList<>(batchSize);
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            batch.add(line);
+            if (batch.size() == batchSize) {
+                pending.add(submit(batch, gameIndex));
+                gameIndex += batch.size();
+                batch = new ArrayList<>(batchSize);
+                if (pending.size() >= maxInFlight) {
+                    out.write(await(pending.poll()));
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            pending.add(submit(batch, gameIndex));
+            gameIndex += batch.size();
+        }
+        while (!pending.isEmpty()) {
+            out.write(await(pending.poll()));
+        }
+        out.flush();
+        return gameIndex;
+    }
+
+    /** Stops the worker threads once queued batches finish. */
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private Future<String> submit(List<String> batch, long firstIndex) {
+        return workers.submit(() -> {
+            StringBuilder sb = new StringBuilder(batch.size() * 64);
+            for (int i = 0; i < batch.size(); i++) {
+                evaluateLine(batch.get(i), firstIndex + i + 1, sb);
+            }
+            return sb.toString();
+        });
+    }
+
+    private static String await(Future<String> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for results");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to evaluate batch", e.getCause());
+        }
+    }
+
+    /**
+     * Parses one game and appends its result line, or an error line if it is
+     * malformed or cannot be analyzed, so one bad game never stops the batch.
+     */
+    static void evaluateLine(String line, long gameNumber, StringBuilder sb) {
+        int start = sb.length();
+        try {
+            PayoffMatrix matrix = parseGame(line);
+            sb.append(gameNumber).append('\t');
+            appendResults(matrix, sb);
+            sb.append('\n');
+        } catch (RuntimeException e) {
+            // drop whatever part of the result line was written
+            sb.setLength(start);
+            String reason = e instanceof IllegalArgumentException ? e.getMessage() : e.toString();
+            sb.append(gameNumber).append("\terror\t").append(reason).append('\n');
+        }
+    }
+
+    /** Parses "rows cols p1... p2..." into a PayoffMatrix. */
+    static PayoffMatrix parseGame(String line) {
+        String[] tokens = line.split("\\s+");
+        if (tokens.length < 2) {
+            throw new IllegalArgumentException("missing dimensions");
+        }
+        int rows;
+        int cols;
+        try {
+            rows = Integer.parseInt(tokens[0]);
+            cols = Integer.parseInt(tokens[1]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid dimensions");
+        }
+        if (rows <= 0 || cols <= 0 || (long) rows * cols > MAX_CELLS) {
+            throw new IllegalArgumentException("invalid dimensions");
+        }
+        int cells = rows * cols;
+        if (tokens.length != 2 + 2 * cells) {
+            throw new IllegalArgumentException("expected " + 2 * cells + " payoffs but found "
+                    + (tokens.length - 2));
+        }
+        int[] p1Payoffs = new int[cells];
+        int[] p2Payoffs = new int[cells];
+        try {
+            for (int i = 0; i < cells; i++) {
+                p1Payoffs[i] = Integer.parseInt(tokens[2 + i]);
+                p2Payoffs[i] = Integer.parseInt(tokens[2 + cells + i]);
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid payoff");
+        }
+        return new PayoffMatrix(rows, cols, p1Payoffs, p2Payoffs);
+    }
+
+    /** Appends the tab-separated analysis columns for one game. */
+    static void appendResults(PayoffMatrix matrix, StringBuilder sb) {
+        int rows = matrix.getNumRows();
+        int cols = matrix.getNumCols();
+
+        int[] cells = new int[rows * cols];
+        int count = matrix.findPureNashEquilibria(cells);
+        if (count == 0) {
+            sb.append('-');
+        }
+        for (int i = 0; i < count; i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(cells[i] / cols + 1).append(',').append(cells[i] % cols + 1);
+        }
+
+        sb.append('\t');
+        for (int c = 1; c <= cols; c++) {
+            if (c > 1) sb.append(' ');
+            sb.append(matrix.findBestResponse(c, 1));
+        }
+        sb.append('\t');
+        for (int r = 1; r <= rows; r++) {
+            if (r > 1) sb.append(' ');
+            sb.append(matrix.findBestResponse(r, 2));
+        }
+
+        sb.append('\t');
+        ArrayList<Double> mixedPQ = matrix.findMixedNashEquilibrium();
+        if (mixedPQ == null) {
+            sb.append('-');
+        } else {
+            sb.append(mixedPQ.get(0)).append(' ').append(mixedPQ.get(1));
+        }
+    }
+
+    /** Usage: java BatchEvaluator [input file] [output file], defaulting to stdin/stdout. */
+    public static void main(String[] args) throws IOException {
+        InputStream inStream = args.length > 0 && !args[0].equals("-")
+                ? new FileInputStream(args[0]) : System.in;
+        OutputStream outStream = args.length > 1 ? new FileOutputStream(args[1]) : System.out;
+        BatchEvaluator evaluator = new BatchEvaluator();
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(inStream, StandardCharsets.UTF_8), 1 << 16);
+             Writer out = new BufferedWriter(new OutputStreamWriter(outStream, StandardCharsets.UTF_8), 1 << 16)) {
+            long games = evaluator.evaluate(in, out);
+            System.err.println("Evaluated " + games + " games.");
+        } finally {
+            evaluator.shutdown();
+        }
+    }
+}
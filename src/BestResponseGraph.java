@@ -0,0 +1,259 @@
+import java.util.Arrays;
+
+/**
+ * The best-response dynamics of a whole game, computed in one pass.
+ *
+ * A state is a square together with the player whose turn it is to move.
+ * On their turn a player switches to their (first) best response to the
+ * other player's move, or stays put if they already play it, and then the
+ * turn passes. Every state has exactly one next state, so starting from
+ * anywhere the dynamics end up going around an attractor: either a pure
+ * strategy Nash Equilibrium (where neither player moves) or a best-response
+ * cycle. The attractors are found as the strongly connected components of
+ * the 2 * numRows * numCols states with an iterative Tarjan search, and every
+ * state is labeled with the attractor whose basin it is in, all in time
+ * linear in the number of states.
+ *
+ * Unlike simulateDeviationPath, a player who already plays a best response
+ * passes the turn instead of ending the walk, so a walk only stops at an
+ * actual equilibrium.
+ */
+public class BestResponseGraph {
+    private final int numRows;
+    private final int numCols;
+    // P1's best row against each column and P2's best column against each row, from 0
+    private final int[] bestRows;
+    private final int[] bestCols;
+    // basin[state] is the attractor reached from state, where state = (row * numCols + col) * 2 + (player - 1)
+    private final int[] basin;
+    // states of attractor a are attractorStates[attractorStart[a]] up to attractorStart[a + 1]
+    private int[] attractorStart;
+    private int[] attractorStates;
+    private int[] basinSize;
+    private int numAttractors;
+
+    /** Builds the graph for the matrix's current payoffs. */
+    public BestResponseGraph(PayoffMatrix matrix) {
+        this(bestRows(matrix), bestCols(matrix));
+    }
+
+    /**
+     * Builds the graph from P1's (first) best row against each column and
+     * P2's (first) best column against each row, all counting from 0, so it
+     * can be built from a snapshot of a matrix that may change meanwhile.
+     */
+    public BestResponseGraph(int[] bestRows, int[] bestCols) {
+        this.bestRows = bestRows;
+        this.bestCols = bestCols;
+        numRows = bestCols.length;
+        numCols = bestRows.length;
+        int numStates = numRows * numCols * 2;
+        basin = new int[numStates];
+        attractorStart = new int[16];
+        attractorStates = new int[16];
+        findAttractors(numStates);
+        basinSize = new int[numAttractors];
+        for (int b : basin) {
+            basinSize[b]++;
+        }
+    }
+
+    /** P1's best row against each column of the matrix, from 0. */
+    static int[] bestRows(PayoffMatrix matrix) {
+        int[] rows = new int[matrix.getNumCols()];
+        for (int c = 0; c < rows.length; c++) {
+            rows[c] = matrix.bestRowIndex(c);
+        }
+        return rows;
+    }
+
+    /** P2's best column against each row of the matrix, from 0. */
+    static int[] bestCols(PayoffMatrix matrix) {
+        int[] cols = new int[matrix.getNumRows()];
+        for (int r = 0; r < cols.length; r++) {
+            cols[r] = matrix.bestColIndex(r);
+        }
+        return cols;
+    }
+
+    /** Next state of the dynamics: the mover switches to a best response, then the turn passes. */
+    private int next(int state) {
+        int cell = state >>> 1;
+        int row = cell / numCols;
+        int col = cell - row * numCols;
+        if ((state & 1) == 0) {
+            // P1 moves, then it is P2's turn
+            return (bestRows[col] * numCols + col) * 2 + 1;
+        }
+        return (row * numCols + bestCols[row]) * 2;
+    }
+
+    /**
+     * Iterative Tarjan search. Components come out in reverse topological
+     * order, so when a single state that is not on a cycle finishes, the
+     * state it leads to already has its basin.
+     */
+    private void findAttractors(int numStates) {
+        int[] index = new int[numStates];
+        int[] low = new int[numStates];
+        Arrays.fill(index, -1);
+        long[] onStack = new long[(numStates + 63) >>> 6];
+        long[] expanded = new long[(numStates + 63) >>> 6];
+        int[] stack = new int[numStates];
+        int[] callStack = new int[numStates];
+        int stackTop = 0;
+        int counter = 0;
+        attractorStart[0] = 0;
+
+        for (int start = 0; start < numStates; start++) {
+            if (index[start] >= 0) continue;
+            int callTop = 0;
+            callStack[callTop++] = start;
+            index[start] = low[start] = counter++;
+            stack[stackTop++] = start;
+            onStack[start >>> 6] |= 1L << start;
+
+            while (callTop > 0) {
+                int v = callStack[callTop - 1];
+                if ((expanded[v >>> 6] & (1L << v)) == 0) {
+                    // each state has one outgoing edge, so expanding it means following that edge
+                    expanded[v >>> 6] |= 1L << v;
+                    int w = next(v);
+                    if (index[w] < 0) {
+                        index[w] = low[w] = counter++;
+                        stack[stackTop++] = w;
+                        onStack[w >>> 6] |= 1L << w;
+                        callStack[callTop++] = w;
+                        continue;
+                    }
+                    if ((onStack[w >>> 6] & (1L << w)) != 0) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                }
+
+                // v is finished
+                callTop--;
+                if (low[v] == index[v]) {
+                    int first = stackTop - 1;
+                    while (stack[first] != v) {
+                        first--;
+                    }
+                    emitComponent(stack, first, stackTop);
+                    for (int i = first; i < stackTop; i++) {
+                        onStack[stack[i] >>> 6] &= ~(1L << stack[i]);
+                    }
+                    stackTop = first;
+                }
+                if (callTop > 0) {
+                    int parent = callStack[callTop - 1];
+                    low[parent] = Math.min(low[parent], low[v]);
+                }
+            }
+        }
+    }
+
+    /** Records a finished component: a new attractor if it is a cycle, otherwise joins its successor's basin. */
+    private void emitComponent(int[] stack, int from, int to) {
+        if (to - from == 1) {
+            int state = stack[from];
+            basin[state] = basin[next(state)];
+            return;
+        }
+        int id = numAttractors++;
+        int begin = attractorStart[id];
+        int end = begin + (to - from);
+        if (attractorStart.length < numAttractors + 1) {
+            attractorStart = Arrays.copyOf(attractorStart, attractorStart.length * 2);
+        }
+        if (attractorStates.length < end) {
+            attractorStates = Arrays.copyOf(attractorStates, Math.max(end, attractorStates.length * 2));
+        }
+        for (int i = from; i < to; i++) {
+            basin[stack[i]] = id;
+        }
+        System.arraycopy(stack, from, attractorStates, begin, to - from);
+        // keep the cycle in the order the dynamics go around it
+        Arrays.sort(attractorStates, begin, end);
+        int at = attractorStates[begin];
+        for (int i = begin; i < end; i++) {
+            attractorStates[i] = at;
+            at = next(at);
+        }
+        attractorStart[numAttractors] = end;
+    }
+
+    /** Number of attractors (equilibria plus best-response cycles). */
+    public int getNumAttractors() {
+        return numAttractors;
+    }
+
+    /**
+     * Returns whether the given attractor (numbered from 0) is a pure
+     * strategy Nash Equilibrium rather than a best-response cycle.
+     */
+    public boolean isEquilibrium(int attractor) {
+        int begin = attractorStart[attractor];
+        int end = attractorStart[attractor + 1];
+        // an equilibrium is the same square with each player in turn passing
+        return end - begin == 2 && (attractorStates[begin] >>> 1) == (attractorStates[begin + 1] >>> 1);
+    }
+
+    /**
+     * Returns the squares the given attractor goes through, in order, as
+     * 0-indexed cell codes row * numCols + col. An equilibrium has one square.
+     */
+    public int[] getAttractorCells(int attractor) {
+        int begin = attractorStart[attractor];
+        int end = attractorStart[attractor + 1];
+        int[] cells = new int[end - begin];
+        int count = 0;
+        for (int i = begin; i < end; i++) {
+            int cell = attractorStates[i] >>> 1;
+            if (count == 0 || cells[count - 1] != cell) {
+                cells[count++] = cell;
+            }
+        }
+        if (count > 1 && cells[count - 1] == cells[0]) {
+            count--;
+        }
+        return Arrays.copyOf(cells, count);
+    }
+
+    /** Number of states (square and player to move) whose dynamics end at the given attractor. */
+    public int getBasinSize(int attractor) {
+        return basinSize[attractor];
+    }
+
+    /**
+     * Returns the attractor reached when it is playerToMove's turn at the
+     * square (row, col), counting rows and columns from 1.
+     */
+    public int getBasin(int row, int col, int playerToMove) {
+        return basin[((row - 1) * numCols + col - 1) * 2 + playerToMove - 1];
+    }
+
+    /**
+     * Returns the attractor reached when, starting from the square
+     * (startRow, startCol), deviatingPlayer switches to deviationMove and
+     * the other player responds next.
+     */
+    public int getDeviationBasin(int startRow, int startCol, int deviatingPlayer, int deviationMove) {
+        if (deviatingPlayer == 1) {
+            return getBasin(deviationMove, startCol, 2);
+        }
+        return getBasin(startRow, deviationMove, 1);
+    }
+
+    /** Describes an attractor as "(Move r, Move c)" squares for display. */
+    public String describeAttractor(int attractor) {
+        StringBuilder sb = new StringBuilder(isEquilibrium(attractor)
+                ? "pure strategy Nash Equilibrium " : "best-response cycle ");
+        int[] cells = getAttractorCells(attractor);
+        for (int i = 0; i < cells.length; i++) {
+            if (i > 0) sb.append(" → ");
+            sb.append("(Move ").append(cells[i] / numCols + 1).append(", Move ")
+                    .append(cells[i] % numCols + 1).append(")");
+        }
+        return sb.toString();
+    }
+}
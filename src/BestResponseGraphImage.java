@@ -0,0 +1,291 @@
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A picture of a game's best-response graph, drawn ahead of time at several
+ * levels of detail so it can be panned and zoomed without drawing it again.
+ *
+ * Every square sits where it is in the payoff matrix. From each square an
+ * arrow leads to P1's best response in the same column (blue) and one to
+ * P2's best response in the same row (red); pure equilibria are green,
+ * squares on a best-response cycle are orange with the cycle drawn, and a
+ * deviation path can be drawn over it all in purple.
+ *
+ * Level 0 has up to MAX_IMAGE_SIZE pixels a side and every level after it
+ * has half the resolution, down to about MIN_LEVEL_SIZE. Each level is drawn
+ * with only the detail that is visible at its size: every arrow when squares
+ * are large, just the colored squares when they are small, and one pixel
+ * for many squares (the most important of them winning) when the game is
+ * huge. Equilibria, cycles and the path are drawn on every level.
+ *
+ * The constructor takes what it needs from the matrix right away, so
+ * render() can then run on another thread while the matrix changes.
+ */
+public class BestResponseGraphImage {
+    public static final int MAX_IMAGE_SIZE = 2048;
+    private static final int MIN_LEVEL_SIZE = 256;
+    private static final double MAX_CELL_PIXELS = 128;
+    // pixels per square from which every arrow is drawn, and from which squares are circles
+    private static final double EDGE_DETAIL = 10;
+    private static final double NODE_DETAIL = 4;
+
+    private static final int BACKGROUND = 0xFFFFFF;
+    private static final int PLAIN = 0xC8C8C8;
+    private static final int CYCLE = 0xFF9900;
+    private static final int EQUILIBRIUM = 0x22AA22;
+    private static final Color P1_EDGE = new Color(0, 0, 255, 150);
+    private static final Color P2_EDGE = new Color(255, 0, 0, 150);
+    private static final Color PATH = new Color(0x8800CC);
+    private static final Color[] KIND_COLORS = {new Color(PLAIN), new Color(CYCLE), new Color(EQUILIBRIUM)};
+
+    private final int numRows;
+    private final int numCols;
+    private final int[] bestRows;
+    private final int[] bestCols;
+    private final int[] path;
+    private BufferedImage[] levels;
+    // pixels per square on each level
+    private double[] cellPixels;
+
+    /**
+     * Takes the matrix's best responses, plus an
+     * optional deviation path of pathLength cell codes as written by the
+     * int[] version of simulateDeviationPath (path may be null). Call
+     * render() before drawing.
+     */
+    public BestResponseGraphImage(PayoffMatrix matrix, int[] path, int pathLength) {
+        numRows = matrix.getNumRows();
+        numCols = matrix.getNumCols();
+        bestRows = BestResponseGraph.bestRows(matrix);
+        bestCols = BestResponseGraph.bestCols(matrix);
+        this.path = path == null ? new int[0] : Arrays.copyOf(path, Math.abs(pathLength));
+    }
+
+    /**
+     * Finds the equilibria and best-response cycles and draws every level. This is the
+     * slow part, so call it off the Swing thread; it returns false without
+     * finishing if the thread is interrupted.
+     */
+    public boolean render() {
+        BestResponseGraph graph = new BestResponseGraph(bestRows, bestCols);
+        byte[] kind = new byte[numRows * numCols];
+        List<int[]> cycles = new ArrayList<>();
+        for (int a = 0; a < graph.getNumAttractors(); a++) {
+            if (!graph.isEquilibrium(a)) {
+                int[] cycle = graph.getAttractorCells(a);
+                cycles.add(cycle);
+                for (int cell : cycle) {
+                    kind[cell] = 1;
+                }
+            }
+        }
+        // a square is an equilibrium when both arrows out of it point back at it
+        for (int r = 0; r < numRows; r++) {
+            int c = bestCols[r];
+            if (bestRows[c] == r) {
+                kind[r * numCols + c] = 2;
+            }
+        }
+
+        double px = Math.min(MAX_CELL_PIXELS, (double) MAX_IMAGE_SIZE / Math.max(numRows, numCols));
+        List<Double> sizes = new ArrayList<>();
+        sizes.add(px);
+        while (Math.max(numRows, numCols) * px > MIN_LEVEL_SIZE) {
+            px /= 2;
+            sizes.add(px);
+        }
+        BufferedImage[] drawn = new BufferedImage[sizes.size()];
+        double[] pixels = new double[sizes.size()];
+        for (int k = 0; k < drawn.length; k++) {
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            pixels[k] = sizes.get(k);
+            drawn[k] = drawLevel(pixels[k], kind, cycles);
+        }
+        cellPixels = pixels;
+        levels = drawn;
+        return true;
+    }
+
+    private BufferedImage drawLevel(double px, byte[] kind, List<int[]> cycles) {
+        int width = Math.max(1, (int) Math.ceil(numCols * px));
+        int height = Math.max(1, (int) Math.ceil(numRows * px));
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] raster = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        Arrays.fill(raster, BACKGROUND);
+        if (px < NODE_DETAIL) {
+            // plain squares first so cycles and then equilibria win pixels shared with them
+            fillCells(raster, width, height, px, kind, (byte) 0, PLAIN);
+            fillCells(raster, width, height, px, kind, (byte) 1, CYCLE);
+            fillCells(raster, width, height, px, kind, (byte) 2, EQUILIBRIUM);
+        }
+
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        if (px >= EDGE_DETAIL) {
+            drawEdges(g, px);
+        }
+        g.setStroke(new BasicStroke((float) Math.min(4, Math.max(1, px / 8))));
+        g.setColor(KIND_COLORS[1]);
+        for (int[] cycle : cycles) {
+            for (int i = 0; i < cycle.length; i++) {
+                g.draw(line(cycle[i], cycle[(i + 1) % cycle.length], px));
+            }
+        }
+        if (px >= NODE_DETAIL) {
+            for (int cell = 0; cell < kind.length; cell++) {
+                double size = px * (kind[cell] == 2 ? 0.6 : 0.4);
+                g.setColor(KIND_COLORS[kind[cell]]);
+                g.fill(new Ellipse2D.Double(centerX(cell, px) - size / 2, centerY(cell, px) - size / 2, size, size));
+            }
+        }
+        drawPath(g, px);
+        g.dispose();
+        return image;
+    }
+
+    /** Fills the pixels of every square of the given kind, leaving a gap between squares when there is room. */
+    private void fillCells(int[] raster, int width, int height, double px, byte[] kind, byte which, int color) {
+        int gap = px >= 2 ? 1 : 0;
+        for (int r = 0; r < numRows; r++) {
+            int y0 = (int) (r * px);
+            int y1 = Math.min(height, Math.max(y0 + 1, (int) ((r + 1) * px) - gap));
+            for (int c = 0; c < numCols; c++) {
+                if (kind[r * numCols + c] != which) continue;
+                int x0 = (int) (c * px);
+                int x1 = Math.min(width, Math.max(x0 + 1, (int) ((c + 1) * px) - gap));
+                for (int y = y0; y < y1; y++) {
+                    Arrays.fill(raster, y * width + x0, y * width + x1, color);
+                }
+            }
+        }
+    }
+
+    /**
+     * Draws both players' best-response arrows. Every square of a column
+     * points at the same best row, so the arrows from above it all lie on
+     * one line and those from below on another; each is drawn once.
+     */
+    private void drawEdges(Graphics2D g, double px) {
+        // P1's arrows run just left of the centers and P2's just above, so they do not cover each other
+        double offset = px * 0.12;
+        g.setStroke(new BasicStroke(1));
+        g.setColor(P1_EDGE);
+        for (int c = 0; c < numCols; c++) {
+            int target = bestRows[c];
+            double x = (c + 0.5) * px - offset;
+            if (target > 0) {
+                drawArrow(g, x, 0.5 * px, x, (target + 0.5) * px, px);
+            }
+            if (target < numRows - 1) {
+                drawArrow(g, x, (numRows - 0.5) * px, x, (target + 0.5) * px, px);
+            }
+        }
+        g.setColor(P2_EDGE);
+        for (int r = 0; r < numRows; r++) {
+            int target = bestCols[r];
+            double y = (r + 0.5) * px - offset;
+            if (target > 0) {
+                drawArrow(g, 0.5 * px, y, (target + 0.5) * px, y, px);
+            }
+            if (target < numCols - 1) {
+                drawArrow(g, (numCols - 0.5) * px, y, (target + 0.5) * px, y, px);
+            }
+        }
+    }
+
+    /** Draws an axis-aligned arrow toward the square centered at (toX, toY), stopping short of its circle. */
+    private static void drawArrow(Graphics2D g, double fromX, double fromY, double toX, double toY, double px) {
+        double dx = Math.signum(toX - fromX);
+        double dy = Math.signum(toY - fromY);
+        double tipX = toX - dx * px * 0.3;
+        double tipY = toY - dy * px * 0.3;
+        g.draw(new Line2D.Double(fromX, fromY, tipX, tipY));
+        g.fill(arrowHead(tipX, tipY, dx, dy, px * 0.15));
+    }
+
+    private static Shape arrowHead(double x, double y, double dx, double dy, double size) {
+        Path2D.Double head = new Path2D.Double();
+        head.moveTo(x, y);
+        head.lineTo(x - dx * size - dy * size / 2, y - dy * size - dx * size / 2);
+        head.lineTo(x - dx * size + dy * size / 2, y - dy * size + dx * size / 2);
+        head.closePath();
+        return head;
+    }
+
+    private void drawPath(Graphics2D g, double px) {
+        if (path.length == 0) {
+            return;
+        }
+        g.setColor(PATH);
+        g.setStroke(new BasicStroke((float) Math.min(6, Math.max(1.5, px / 6)), BasicStroke.CAP_ROUND,
+                BasicStroke.JOIN_ROUND));
+        for (int i = 1; i < path.length; i++) {
+            g.draw(line(path[i - 1], path[i], px));
+        }
+        // ring around where the path starts
+        double size = Math.max(5, px * 0.8);
+        g.draw(new Ellipse2D.Double(centerX(path[0], px) - size / 2, centerY(path[0], px) - size / 2, size, size));
+    }
+
+    private Line2D line(int fromCell, int toCell, double px) {
+        return new Line2D.Double(centerX(fromCell, px), centerY(fromCell, px), centerX(toCell, px), centerY(toCell, px));
+    }
+
+    private double centerX(int cell, double px) {
+        return (cell % numCols + 0.5) * px;
+    }
+
+    private double centerY(int cell, double px) {
+        return (cell / numCols + 0.5) * px;
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public int getNumCols() {
+        return numCols;
+    }
+
+    /** Number of levels of detail drawn by render(). */
+    public int getNumLevels() {
+        return levels == null ? 0 : levels.length;
+    }
+
+    /**
+     * Draws the part of the graph in a width x height view, where scale is
+     * the number of view pixels per square and (x, y) is the position, in
+     * squares, at the view's top-left corner. Uses the least detailed level
+     * that still has at least scale pixels per square, so only a view's
+     * worth of pixels is ever copied.
+     */
+    public void paint(Graphics2D g, int width, int height, double scale, double x, double y) {
+        g.setColor(new Color(BACKGROUND));
+        g.fillRect(0, 0, width, height);
+        if (levels == null) {
+            return;
+        }
+        int level = 0;
+        while (level + 1 < levels.length && cellPixels[level + 1] >= scale) {
+            level++;
+        }
+        double zoom = scale / cellPixels[level];
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, zoom < 1
+                ? RenderingHints.VALUE_INTERPOLATION_BILINEAR : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+        Shape clip = g.getClip();
+        g.clipRect(0, 0, width, height);
+        AffineTransform transform = new AffineTransform(zoom, 0, 0, zoom, -x * scale, -y * scale);
+        g.drawImage(levels[level], transform, null);
+        g.setClip(clip);
+    }
+}
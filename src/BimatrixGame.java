@@ -0,0 +1,91 @@
+/**
+ * A 2-player game where P1 picks a row and P2 picks a column. Rows,
+ * columns and moves all count from 1. PayoffMatrix stores its payoffs in
+ * arrays; other implementations (like MappedGame) read them from elsewhere,
+ * and the solvers work on any of them.
+ */
+public interface BimatrixGame {
+    /** Number of rows (P1's moves). */
+    int getNumRows();
+
+    /** Number of columns (P2's moves). */
+    int getNumCols();
+
+    /** P1's payoff for the given row and column. */
+    int getP1Payoff(int row, int col);
+
+    /** P2's payoff for the given row and column. */
+    int getP2Payoff(int row, int col);
+
+    /**
+     * Writes every pure strategy Nash Equilibrium into cells (which must
+     * hold at least getNumRows() * getNumCols() entries) as the 0-indexed
+     * cell code row * numCols + col, in row-major order, and returns how many
+     * were found.
+     */
+    default int findPureNashEquilibria(int[] cells) {
+        int rows = getNumRows();
+        int cols = getNumCols();
+        int[] colMax = new int[cols];
+        int[] rowMax = new int[rows];
+        for (int c = 0; c < cols; c++) {
+            colMax[c] = getP1Payoff(1, c + 1);
+        }
+        for (int r = 0; r < rows; r++) {
+            int best = getP2Payoff(r + 1, 1);
+            for (int c = 0; c < cols; c++) {
+                colMax[c] = Math.max(colMax[c], getP1Payoff(r + 1, c + 1));
+                best = Math.max(best, getP2Payoff(r + 1, c + 1));
+            }
+            rowMax[r] = best;
+        }
+
+        int count = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (getP2Payoff(r + 1, c + 1) == rowMax[r] && getP1Payoff(r + 1, c + 1) == colMax[c]) {
+                    cells[count++] = r * cols + c;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds best response for a given player,
+     * given the other player's move. Returns null
+     * if given invalid input.
+     */
+    default Integer findBestResponse(int move, int player) {
+        if (player == 1) {
+            if (move <= 0 || move > getNumCols()) {
+                return null;
+            }
+            int bestRow = 1;
+            int max = getP1Payoff(1, move);
+            for (int r = 2; r <= getNumRows(); r++) {
+                int payoff = getP1Payoff(r, move);
+                if (payoff > max) {
+                    max = payoff;
+                    bestRow = r;
+                }
+            }
+            return bestRow;
+        } else if (player == 2) {
+            if (move <= 0 || move > getNumRows()) {
+                return null;
+            }
+            int bestCol = 1;
+            int max = getP2Payoff(move, 1);
+            for (int c = 2; c <= getNumCols(); c++) {
+                int payoff = getP2Payoff(move, c);
+                if (payoff > max) {
+                    max = payoff;
+                    bestCol = c;
+                }
+            }
+            return bestCol;
+        }
+        return null;
+    }
+}
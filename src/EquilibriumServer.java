@@ -0,0 +1,293 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers equilibrium queries over HTTP so other local processes can use
+ * the solvers without starting a JVM for every call. The server only
+ * listens on the loopback address.
+ *
+ * Every query is a POST whose body is a batch of games in the batch mode
+ * format, one per line, and whose response is HeadlessRunner's output for
+ * them, one tab-separated line per game in the same order. The path picks
+ * the analysis, and the query string can add more, with the same names as
+ * HeadlessRunner's flags:
+ *
+ *   POST /pure                       pure equilibria
+ *   POST /best                       best responses
+ *   POST /mixed                      mixed equilibria
+ *   POST /network                    help/harm graph of 2x2 games
+ *   POST /path?path=row,col,player,move
+ *                                    deviation path (path can repeat)
+ *   POST /analyze?pure&best&path=... any combination
+ *   GET  /stats                      requests in flight, served and rejected,
+ *                                    and the cache's hits, misses and evictions
+ *
+ * Mixed equilibria of games larger than 2x2 go through one GameCache shared
+ * by every request, so resubmitted games (even relabeled) are solved once.
+ *
+ * Each request runs on its own virtual thread, but at most maxInFlight
+ * batches are evaluated at once. A request that cannot start within the
+ * queue timeout gets 503 with a Retry-After header instead of piling up, so
+ * clients that are sending too much slow down rather than the server
+ * running out of memory.
+ *
+ * Bodies are untrusted, so each request is limited too: bodies over
+ * MAX_BODY_BYTES get 413 (or are cut off, if sent without a length), games
+ * over MAX_GAME_CELLS squares get an error line, and a batch still running
+ * after SOLVE_TIMEOUT_MILLIS is cancelled, so its last line ends in
+ * "cancelled" and its permit is freed for the next request. Cancelling
+ * cannot stop a read that is waiting for a slow client, so the JDK server's
+ * own timeouts close connections whose body takes more than
+ * REQUEST_TIMEOUT_SECONDS to arrive or whose response takes more than
+ * RESPONSE_TIMEOUT_SECONDS, unless the sun.net.httpserver.maxReqTime and
+ * maxRspTime properties are already set.
+ */
+public class EquilibriumServer {
+    public static final int DEFAULT_PORT = 8150;
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+    private static final long QUEUE_TIMEOUT_MILLIS = 100;
+    public static final long MAX_BODY_BYTES = 8L << 20;
+    // 256x256
+    public static final int MAX_GAME_CELLS = 1 << 16;
+    public static final long SOLVE_TIMEOUT_MILLIS = 10_000;
+    public static final int REQUEST_TIMEOUT_SECONDS = 10;
+    public static final int RESPONSE_TIMEOUT_SECONDS = 60;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    // interrupts batches that run past their deadline
+    private final ScheduledExecutorService timer;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final AtomicLong served = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+    private final GameCache cache;
+
+    /**
+     * Creates a server on the given loopback port (0 picks a free one) that
+     * evaluates at most maxInFlight batches at once, with a cache of
+     * DEFAULT_CACHE_SIZE games. Call start() to start answering.
+     */
+    public EquilibriumServer(int port, int maxInFlight) throws IOException {
+        this(port, maxInFlight, new GameCache(DEFAULT_CACHE_SIZE));
+    }
+
+    /** Same as above with the given cache, shared by every request. */
+    public EquilibriumServer(int port, int maxInFlight, GameCache cache) throws IOException {
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight must be positive");
+        }
+        this.maxInFlight = maxInFlight;
+        this.cache = cache;
+        inFlight = new Semaphore(maxInFlight);
+        // read once, when the first server is created
+        setDefaultProperty("sun.net.httpserver.maxReqTime", REQUEST_TIMEOUT_SECONDS);
+        setDefaultProperty("sun.net.httpserver.maxRspTime", RESPONSE_TIMEOUT_SECONDS);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "EquilibriumServer timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.createContext("/stats", this::handleStats);
+        server.createContext("/", this::handleQuery);
+    }
+
+    private static void setDefaultProperty(String name, int seconds) {
+        if (System.getProperty(name) == null) {
+            System.setProperty(name, Integer.toString(seconds));
+        }
+    }
+
+    /** Starts answering requests in the background. */
+    public void start() {
+        server.start();
+    }
+
+    /** Stops the server, giving requests in flight up to the given number of seconds to finish. */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        timer.shutdownNow();
+    }
+
+    /** The port the server listens on. */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handleQuery(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                send(exchange, 405, "Send games with POST, one per line\n");
+                return;
+            }
+            HeadlessRunner runner;
+            try {
+                runner = parseQuery(exchange.getRequestURI());
+                runner.setCache(cache);
+                runner.setMaxCells(MAX_GAME_CELLS);
+            } catch (IllegalArgumentException e) {
+                send(exchange, 400, e.getMessage() + "\n");
+                return;
+            }
+            String length = exchange.getRequestHeaders().getFirst("Content-Length");
+            if (length != null && !isWithinBodyLimit(length)) {
+                send(exchange, 413, "Send at most " + MAX_BODY_BYTES + " bytes per request\n");
+                return;
+            }
+            if (!inFlight.tryAcquire(QUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                rejected.incrementAndGet();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, 503, "Too many requests in flight, try again later\n");
+                return;
+            }
+            ScheduledFuture<?> timeout = timer.schedule(runner::cancel, SOLVE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            try {
+                exchange.getResponseHeaders().set("Content-Type", "text/tab-separated-values; charset=utf-8");
+                // 0 means the length is unknown, so results stream out as they are written
+                exchange.sendResponseHeaders(200, 0);
+                runner.run(new LimitedInputStream(exchange.getRequestBody(), MAX_BODY_BYTES),
+                        exchange.getResponseBody());
+                served.incrementAndGet();
+            } finally {
+                timeout.cancel(false);
+                if (runner.isCancelled()) {
+                    timedOut.incrementAndGet();
+                }
+                inFlight.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try {
+            send(exchange, 200, "inFlight\t" + (maxInFlight - inFlight.availablePermits())
+                    + "\nserved\t" + served.get() + "\nrejected\t" + rejected.get()
+                    + "\ntimedOut\t" + timedOut.get()
+                    + "\ncacheSize\t" + cache.size() + "\ncacheHits\t" + cache.getHits()
+                    + "\ncacheMisses\t" + cache.getMisses() + "\ncacheEvictions\t" + cache.getEvictions() + "\n");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Turns the path and query string into HeadlessRunner's flags, so
+     * /path?path=1,1,2,2&pure becomes --path 1,1,2,2 --pure.
+     */
+    static HeadlessRunner parseQuery(URI uri) {
+        List<String> args = new ArrayList<>();
+        String name = uri.getPath().substring(1);
+        if (!name.equals("analyze") && !name.equals("path")) {
+            args.add("--" + name);
+        }
+        String query = uri.getRawQuery();
+        if (query != null && !query.isEmpty()) {
+            for (String parameter : query.split("&")) {
+                int equals = parameter.indexOf('=');
+                String key = equals < 0 ? parameter : parameter.substring(0, equals);
+                if (key.equals("cache")) {
+                    throw new IllegalArgumentException("The cache is set when the server starts");
+                }
+                args.add("--" + URLDecoder.decode(key, StandardCharsets.UTF_8));
+                if (equals >= 0) {
+                    args.add(URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+                }
+            }
+        }
+        if (args.isEmpty()) {
+            throw new IllegalArgumentException("No analysis requested");
+        }
+        List<String> files = new ArrayList<>();
+        HeadlessRunner runner = HeadlessRunner.fromArgs(args.toArray(new String[0]), files);
+        if (!files.isEmpty()) {
+            throw new IllegalArgumentException("Unexpected value " + files.get(0));
+        }
+        return runner;
+    }
+
+    private static boolean isWithinBodyLimit(String length) {
+        try {
+            return Long.parseLong(length.trim()) <= MAX_BODY_BYTES;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /** Ends the body with an IOException once more than limit bytes have been read. */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private long remaining;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, (int) Math.min(len, remaining + 1));
+            if (n > 0) {
+                remaining -= n;
+                if (remaining < 0) {
+                    throw new IOException("Request body is longer than " + MAX_BODY_BYTES + " bytes");
+                }
+            }
+            return n;
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /** Usage: java EquilibriumServer [port] [max requests in flight] [cache size] */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        int maxInFlight = args.length > 1 ? Integer.parseInt(args[1])
+                : 2 * Runtime.getRuntime().availableProcessors();
+        int cacheSize = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_CACHE_SIZE;
+        EquilibriumServer server = new EquilibriumServer(port, maxInFlight, new GameCache(cacheSize));
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+        server.start();
+        System.err.println("Listening on http://127.0.0.1:" + server.getPort() + "/");
+    }
+}
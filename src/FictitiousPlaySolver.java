@@ -0,0 +1,43 @@
+/**
+ * Fictitious play: every iteration, each player plays a best response to
+ * the other player's history of moves so far, and the average of what they
+ * played approaches a Nash Equilibrium in zero-sum games, 2x2 games and
+ * several other classes (but can keep cycling in general). Each iteration
+ * only adds one row and one column of payoffs to the cumulative payoffs, so
+ * it takes time linear in the number of moves.
+ */
+public class FictitiousPlaySolver extends IterativeSolver {
+    public FictitiousPlaySolver(BimatrixGame matrix) {
+        super(matrix);
+    }
+
+    @Override
+    protected void iterate() {
+        int row;
+        int col;
+        if (totalWeight == 0) {
+            // no history to respond to yet, so P1 opens with Move 1 and P2 answers it
+            row = 0;
+            col = matrix.findBestResponse(1, 2) - 1;
+        } else {
+            row = argmax(p1PayoffSum);
+            col = argmax(p2PayoffSum);
+        }
+        p1StrategySum[row]++;
+        p2StrategySum[col]++;
+        addColumn(col, 1);
+        addRow(row, 1);
+        totalWeight++;
+    }
+
+    /** First move with the highest cumulative payoff. */
+    private static int argmax(double[] payoffs) {
+        int best = 0;
+        for (int i = 1; i < payoffs.length; i++) {
+            if (payoffs[i] > payoffs[best]) {
+                best = i;
+            }
+        }
+        return best;
+    }
+}
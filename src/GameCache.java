@@ -0,0 +1,520 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches solver results for games that are the same up to relabeling.
+ *
+ * Two games are treated as the same when one can be turned into the other
+ * by reordering P1's moves, reordering P2's moves and swapping which player
+ * is P1, and optionally also by multiplying a player's payoffs by a
+ * positive number and adding a constant (which changes no one's best
+ * responses). Each game is first put into a canonical form, results are
+ * stored for that form in a least recently used map of bounded size, and
+ * cached equilibria are mapped back to the caller's move numbers, with the
+ * payoffs recomputed from the caller's game.
+ *
+ * The canonical form orders rows and columns by repeatedly refining them by
+ * their multiset of (other move's class, P1's payoff, P2's payoff) entries,
+ * then tries every order of the moves still tied (when there are at most
+ * MAX_TIE_ORDERS of them) and keeps the smallest resulting matrix. For
+ * games with more ties than that it falls back to one fixed order, which
+ * can miss hits but never returns a wrong answer, since entries are looked
+ * up by the full matrix.
+ *
+ * All methods are thread-safe. Results are computed outside the lock, so
+ * two threads that miss on the same game at once may both solve it.
+ */
+public class GameCache {
+    static final int MAX_TIE_ORDERS = 5040;
+
+    private final int capacity;
+    private final boolean affineInvariant;
+    private final LinkedHashMap<Key, Entry> entries;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    /** Creates a cache of at most capacity games, matching games up to relabeling only. */
+    public GameCache(int capacity) {
+        this(capacity, false);
+    }
+
+    /**
+     * Creates a cache of at most capacity games. If affineInvariant is set,
+     * games whose payoffs differ by a positive affine transform for each
+     * player also share an entry.
+     */
+    public GameCache(int capacity, boolean affineInvariant) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.capacity = capacity;
+        this.affineInvariant = affineInvariant;
+        // access order makes iteration start at the least recently used entry
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > GameCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Same result as PayoffMatrix.findPureNashEquilibrium(): the squares
+     * that are pure strategy Nash Equilibria as (row, column) pairs in
+     * row-major order, or null if there are none.
+     */
+    public ArrayList<ArrayList<Integer>> findPureNashEquilibrium(BimatrixGame game) {
+        Canonical canonical = canonicalize(game);
+        int[] cells = lookupPure(canonical.key);
+        if (cells == null) {
+            PayoffMatrix matrix = canonical.key.toPayoffMatrix();
+            int[] found = new int[canonical.key.rows * canonical.key.cols];
+            cells = Arrays.copyOf(found, matrix.findPureNashEquilibria(found));
+            store(canonical.key).pureCells = cells;
+        }
+        if (cells.length == 0) {
+            return null;
+        }
+        int cols = game.getNumCols();
+        int[] original = new int[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            int row = cells[i] / canonical.key.cols;
+            int col = cells[i] % canonical.key.cols;
+            original[i] = canonical.originalRow(row, col) * cols + canonical.originalCol(row, col);
+        }
+        Arrays.sort(original);
+        ArrayList<ArrayList<Integer>> equilibria = new ArrayList<>(original.length);
+        for (int cell : original) {
+            equilibria.add(new ArrayList<>(Arrays.asList(cell / cols + 1, cell % cols + 1)));
+        }
+        return equilibria;
+    }
+
+    /**
+     * Same result as PayoffMatrix.findAllMixedNashEquilibria(), found in the
+     * cache when an equivalent game was solved before.
+     */
+    public List<StrategyProfile> findAllMixedNashEquilibria(BimatrixGame game) {
+        Canonical canonical = canonicalize(game);
+        List<StrategyProfile> cached = lookupMixed(canonical.key);
+        if (cached == null) {
+            cached = canonical.key.toPayoffMatrix().findAllMixedNashEquilibria();
+            store(canonical.key).mixed = cached;
+        }
+        List<StrategyProfile> equilibria = new ArrayList<>(cached.size());
+        for (StrategyProfile profile : cached) {
+            equilibria.add(canonical.mapBack(profile));
+        }
+        return equilibria;
+    }
+
+    private synchronized int[] lookupPure(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.pureCells == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.pureCells;
+    }
+
+    private synchronized List<StrategyProfile> lookupMixed(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.mixed == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.mixed;
+    }
+
+    private synchronized Entry store(Key key) {
+        return entries.computeIfAbsent(key, k -> new Entry());
+    }
+
+    /** Number of lookups answered from the cache. */
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    /** Number of lookups that had to run a solver. */
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /** Number of games dropped to keep the cache within its capacity. */
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    /** Number of games currently cached. */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /** Maximum number of games cached. */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /** Removes every cached game, leaving the counters alone. */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    // ---- canonical form ----
+
+    /** Puts the game into canonical form, remembering how to get back. */
+    Canonical canonicalize(BimatrixGame game) {
+        int rows = game.getNumRows();
+        int cols = game.getNumCols();
+        int[] a = new int[rows * cols];
+        int[] b = new int[rows * cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                a[r * cols + c] = game.getP1Payoff(r + 1, c + 1);
+                b[r * cols + c] = game.getP2Payoff(r + 1, c + 1);
+            }
+        }
+        int[] p1 = affineInvariant ? normalize(a) : a;
+        int[] p2 = affineInvariant ? normalize(b) : b;
+
+        Canonical canonical = label(rows, cols, p1, p2, false);
+        // with the players swapped, P1 picks one of the old columns and gets what P2 got
+        int[] swappedP1 = new int[rows * cols];
+        int[] swappedP2 = new int[rows * cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                swappedP1[c * rows + r] = p2[r * cols + c];
+                swappedP2[c * rows + r] = p1[r * cols + c];
+            }
+        }
+        Canonical swapped = label(cols, rows, swappedP1, swappedP2, true);
+        if (swapped.key.compareTo(canonical.key) < 0) {
+            canonical = swapped;
+        }
+        canonical.p1Payoffs = a;
+        canonical.p2Payoffs = b;
+        canonical.numCols = cols;
+        return canonical;
+    }
+
+    /**
+     * Shifts the payoffs so the smallest is 0 and divides by the greatest
+     * common divisor of what is left, giving the same array for any two
+     * payoff lists that differ by a positive affine transform.
+     */
+    private static int[] normalize(int[] payoffs) {
+        int min = Integer.MAX_VALUE;
+        for (int p : payoffs) {
+            min = Math.min(min, p);
+        }
+        long gcd = 0;
+        for (int p : payoffs) {
+            gcd = gcd(gcd, (long) p - min);
+        }
+        int[] normalized = new int[payoffs.length];
+        for (int i = 0; i < payoffs.length; i++) {
+            normalized[i] = gcd == 0 ? 0 : (int) (((long) payoffs[i] - min) / gcd);
+        }
+        return normalized;
+    }
+
+    private static long gcd(long x, long y) {
+        while (y != 0) {
+            long t = x % y;
+            x = y;
+            y = t;
+        }
+        return x;
+    }
+
+    /** Canonical labeling of a rows x cols game with the given (already normalized) payoffs. */
+    private static Canonical label(int rows, int cols, int[] a, int[] b, boolean swapped) {
+        int[] cellClass = pairRanks(a, b);
+        int[] rowClass = new int[rows];
+        int[] colClass = new int[cols];
+        int rowClasses = 1;
+        int colClasses = 1;
+        while (true) {
+            int newRowClasses = refine(rows, cols, rowClass, colClass, cellClass, cols, 1);
+            int newColClasses = refine(cols, rows, colClass, rowClass, cellClass, 1, cols);
+            if (newRowClasses == rowClasses && newColClasses == colClasses) {
+                break;
+            }
+            rowClasses = newRowClasses;
+            colClasses = newColClasses;
+        }
+
+        List<int[]> rowOrders = tiedOrders(rowClass, rowClasses);
+        List<int[]> colOrders = tiedOrders(colClass, colClasses);
+        if ((long) rowOrders.size() * colOrders.size() > MAX_TIE_ORDERS) {
+            rowOrders = rowOrders.subList(0, 1);
+            colOrders = colOrders.subList(0, 1);
+        }
+        Key best = null;
+        int[] bestRows = null;
+        int[] bestCols = null;
+        for (int[] rowOrder : rowOrders) {
+            for (int[] colOrder : colOrders) {
+                int[] p1 = new int[rows * cols];
+                int[] p2 = new int[rows * cols];
+                for (int i = 0; i < rows; i++) {
+                    int base = rowOrder[i] * cols;
+                    for (int j = 0; j < cols; j++) {
+                        p1[i * cols + j] = a[base + colOrder[j]];
+                        p2[i * cols + j] = b[base + colOrder[j]];
+                    }
+                }
+                Key key = new Key(rows, cols, p1, p2);
+                if (best == null || key.compareTo(best) < 0) {
+                    best = key;
+                    bestRows = rowOrder;
+                    bestCols = colOrder;
+                }
+            }
+        }
+        return new Canonical(best, swapped, bestRows, bestCols);
+    }
+
+    /**
+     * Ranks every square by its (P1's payoff, P2's payoff) pair among the
+     * distinct pairs in the game, so refinement can compare squares with
+     * one int.
+     */
+    private static int[] pairRanks(int[] a, int[] b) {
+        long[] pairs = new long[a.length];
+        for (int i = 0; i < a.length; i++) {
+            // flipping the sign bits makes unsigned order match signed order
+            pairs[i] = ((long) (a[i] ^ Integer.MIN_VALUE) << 32) | ((b[i] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+        }
+        long[] sorted = pairs.clone();
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[i - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        int[] ranks = new int[a.length];
+        for (int i = 0; i < a.length; i++) {
+            ranks[i] = Arrays.binarySearch(sorted, 0, distinct, pairs[i]);
+        }
+        return ranks;
+    }
+
+    /**
+     * One refinement step for the moves of one player: each move's new class
+     * is the rank of its old class together with the sorted list of (other
+     * move's class, square's payoff pair rank) over the other player's
+     * moves. The square for move i against other move k is at
+     * i * stride + k * step. Returns the number of classes.
+     */
+    private static int refine(int count, int others, int[] classes, int[] otherClasses,
+                              int[] cellClass, int stride, int step) {
+        long[][] signatures = new long[count][];
+        for (int i = 0; i < count; i++) {
+            int base = i * stride;
+            long[] signature = new long[1 + others];
+            signature[0] = classes[i];
+            for (int k = 0; k < others; k++) {
+                signature[1 + k] = ((long) otherClasses[k] << 32) | cellClass[base + k * step];
+            }
+            Arrays.sort(signature, 1, signature.length);
+            signatures[i] = signature;
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (x, y) -> Arrays.compare(signatures[x], signatures[y]));
+        int numClasses = 0;
+        for (int i = 0; i < count; i++) {
+            if (i > 0 && Arrays.compare(signatures[order[i]], signatures[order[i - 1]]) != 0) {
+                numClasses++;
+            }
+            classes[order[i]] = numClasses;
+        }
+        return numClasses + 1;
+    }
+
+    /**
+     * Every order of the moves that lists the classes in increasing order,
+     * trying every order within each class, or just one order if there are
+     * more than MAX_TIE_ORDERS. order[i] is the move placed at position i.
+     */
+    private static List<int[]> tiedOrders(int[] classes, int numClasses) {
+        int[][] members = new int[numClasses][];
+        int[] sizes = new int[numClasses];
+        for (int c : classes) {
+            sizes[c]++;
+        }
+        long total = 1;
+        for (int k = 0; k < numClasses; k++) {
+            members[k] = new int[sizes[k]];
+            for (int f = 2; f <= sizes[k] && total <= MAX_TIE_ORDERS; f++) {
+                total *= f;
+            }
+            sizes[k] = 0;
+        }
+        for (int i = 0; i < classes.length; i++) {
+            members[classes[i]][sizes[classes[i]]++] = i;
+        }
+        List<int[]> orders = new ArrayList<>();
+        int[] order = new int[classes.length];
+        if (total > MAX_TIE_ORDERS) {
+            int position = 0;
+            for (int[] group : members) {
+                for (int move : group) {
+                    order[position++] = move;
+                }
+            }
+            orders.add(order);
+        } else {
+            permute(members, 0, 0, 0, order, orders);
+        }
+        return orders;
+    }
+
+    /** Fills order from position on with every permutation of members[k] (from index i), then the later classes. */
+    private static void permute(int[][] members, int k, int i, int position, int[] order, List<int[]> orders) {
+        if (k == members.length) {
+            orders.add(order.clone());
+            return;
+        }
+        int[] group = members[k];
+        if (i == group.length) {
+            permute(members, k + 1, 0, position, order, orders);
+            return;
+        }
+        for (int j = i; j < group.length; j++) {
+            swap(group, i, j);
+            order[position] = group[i];
+            permute(members, k, i + 1, position + 1, order, orders);
+            swap(group, i, j);
+        }
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int t = array[i];
+        array[i] = array[j];
+        array[j] = t;
+    }
+
+    /** A game in canonical form, used as the map key. */
+    static final class Key implements Comparable<Key> {
+        final int rows;
+        final int cols;
+        final int[] p1Payoffs;
+        final int[] p2Payoffs;
+        private final int hash;
+
+        Key(int rows, int cols, int[] p1Payoffs, int[] p2Payoffs) {
+            this.rows = rows;
+            this.cols = cols;
+            this.p1Payoffs = p1Payoffs;
+            this.p2Payoffs = p2Payoffs;
+            this.hash = 31 * (31 * (31 * rows + cols) + Arrays.hashCode(p1Payoffs)) + Arrays.hashCode(p2Payoffs);
+        }
+
+        PayoffMatrix toPayoffMatrix() {
+            return new PayoffMatrix(rows, cols, p1Payoffs.clone(), p2Payoffs.clone());
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            if (rows != other.rows) {
+                return Integer.compare(rows, other.rows);
+            }
+            if (cols != other.cols) {
+                return Integer.compare(cols, other.cols);
+            }
+            int compared = Arrays.compare(p1Payoffs, other.p1Payoffs);
+            return compared != 0 ? compared : Arrays.compare(p2Payoffs, other.p2Payoffs);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && rows == other.rows && cols == other.cols
+                    && Arrays.equals(p1Payoffs, other.p1Payoffs) && Arrays.equals(p2Payoffs, other.p2Payoffs);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /** A canonical key together with the relabeling that produced it. */
+    static final class Canonical {
+        final Key key;
+        final boolean swapped;
+        // canonical row i is row rowOrder[i] of the (possibly swapped) game, likewise for columns
+        final int[] rowOrder;
+        final int[] colOrder;
+        // the caller's game, for recomputing payoffs
+        int[] p1Payoffs;
+        int[] p2Payoffs;
+        int numCols;
+
+        Canonical(Key key, boolean swapped, int[] rowOrder, int[] colOrder) {
+            this.key = key;
+            this.swapped = swapped;
+            this.rowOrder = rowOrder;
+            this.colOrder = colOrder;
+        }
+
+        /** The caller's 0-indexed row for the canonical square (row, col). */
+        int originalRow(int row, int col) {
+            return swapped ? colOrder[col] : rowOrder[row];
+        }
+
+        /** The caller's 0-indexed column for the canonical square (row, col). */
+        int originalCol(int row, int col) {
+            return swapped ? rowOrder[row] : colOrder[col];
+        }
+
+        /** Relabels a profile of the canonical game for the caller's game. */
+        StrategyProfile mapBack(StrategyProfile profile) {
+            double[] x = new double[key.rows];
+            double[] y = new double[key.cols];
+            for (int i = 0; i < key.rows; i++) {
+                x[rowOrder[i]] = profile.getP1Probability(i + 1);
+            }
+            for (int j = 0; j < key.cols; j++) {
+                y[colOrder[j]] = profile.getP2Probability(j + 1);
+            }
+            double[] p1Strategy = swapped ? y : x;
+            double[] p2Strategy = swapped ? x : y;
+            double p1Payoff = 0;
+            double p2Payoff = 0;
+            for (int r = 0; r < p1Strategy.length; r++) {
+                if (p1Strategy[r] == 0) continue;
+                for (int c = 0; c < numCols; c++) {
+                    double weight = p1Strategy[r] * p2Strategy[c];
+                    p1Payoff += weight * p1Payoffs[r * numCols + c];
+                    p2Payoff += weight * p2Payoffs[r * numCols + c];
+                }
+            }
+            return new StrategyProfile(p1Strategy, p2Strategy, p1Payoff, p2Payoff);
+        }
+    }
+
+    /** Results cached for one canonical game; either may still be missing. */
+    private static final class Entry {
+        int[] pureCells;
+        List<StrategyProfile> mixed;
+    }
+}
@@ -0,0 +1,126 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads a binary game corpus written by GameCorpusWriter by memory-mapping
+ * it. The file is a 16 byte header (the magic number "PMAT", the format
+ * version and the number of games as a long) followed by one record per
+ * game: the number of rows, the number of columns, then P1's and P2's
+ * payoffs in row-major order. Everything is little-endian int32.
+ *
+ * The file is mapped in windows of up to a gigabyte so corpora larger than
+ * one mapping can be scanned, and every game is exposed through the same
+ * reused MappedGame view, so scanning allocates nothing per game.
+ */
+public class GameCorpusReader implements Closeable {
+    static final int MAGIC = 0x54414D50; // "PMAT" when read little-endian
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+    private static final long WINDOW_BYTES = 1L << 30;
+
+    private final FileChannel channel;
+    private final long fileSize;
+    private final long gameCount;
+    private final MappedGame view = new MappedGame();
+
+    private IntBuffer window;
+    private long windowStart;
+    private long windowEnd;
+    private long nextGamePosition = HEADER_BYTES;
+    private long gamesRead;
+
+    /** Opens the corpus and checks its header. */
+    public GameCorpusReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            fileSize = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("Not a game corpus: file is too short");
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a game corpus: bad magic number");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported game corpus version " + version);
+            }
+            gameCount = header.getLong();
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /** Number of games in the corpus. */
+    public long getGameCount() {
+        return gameCount;
+    }
+
+    /**
+     * Moves to the next game, returning false once every game has been
+     * read. The game is then available from current().
+     */
+    public boolean next() throws IOException {
+        if (gamesRead == gameCount) {
+            return false;
+        }
+        mapAround(nextGamePosition, 8);
+        int offset = (int) ((nextGamePosition - windowStart) >> 2);
+        int rows = window.get(offset);
+        int cols = window.get(offset + 1);
+        if (rows <= 0 || cols <= 0) {
+            throw new IOException("Corrupt game corpus: game " + (gamesRead + 1) + " has invalid dimensions");
+        }
+        long recordBytes = 8 + 8L * rows * cols;
+        mapAround(nextGamePosition, recordBytes);
+        view.reset(window, (int) ((nextGamePosition - windowStart) >> 2));
+        nextGamePosition += recordBytes;
+        gamesRead++;
+        return true;
+    }
+
+    /** The game next() moved to; only valid until next() is called again. */
+    public MappedGame current() {
+        return view;
+    }
+
+    /** Goes back to before the first game. */
+    public void rewind() {
+        nextGamePosition = HEADER_BYTES;
+        gamesRead = 0;
+    }
+
+    /** Makes sure bytes [position, position + length) are inside the mapped window. */
+    private void mapAround(long position, long length) throws IOException {
+        if (window != null && position >= windowStart && position + length <= windowEnd) {
+            return;
+        }
+        if (position + length > fileSize) {
+            throw new IOException("Corrupt game corpus: file ends in the middle of game " + (gamesRead + 1));
+        }
+        long size = Math.min(Math.max(WINDOW_BYTES, length), fileSize - position);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Game " + (gamesRead + 1) + " is too large to map");
+        }
+        window = channel.map(FileChannel.MapMode.READ_ONLY, position, size)
+                .order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        windowStart = position;
+        windowEnd = position + size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = null;
+        channel.close();
+    }
+}
@@ -0,0 +1,80 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes games to the binary corpus format read by GameCorpusReader. The
+ * game count in the header is filled in when the writer is closed.
+ */
+public class GameCorpusWriter implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+    private long gameCount;
+
+    /** Creates (or replaces) the corpus file at path. */
+    public GameCorpusWriter(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer.putInt(GameCorpusReader.MAGIC);
+        buffer.putInt(GameCorpusReader.VERSION);
+        // game count, patched in close()
+        buffer.putLong(0);
+    }
+
+    /** Appends one game to the corpus. */
+    public void write(BimatrixGame game) throws IOException {
+        int rows = game.getNumRows();
+        int cols = game.getNumCols();
+        putInt(rows);
+        putInt(cols);
+        for (int r = 1; r <= rows; r++) {
+            for (int c = 1; c <= cols; c++) {
+                putInt(game.getP1Payoff(r, c));
+            }
+        }
+        for (int r = 1; r <= rows; r++) {
+            for (int c = 1; c <= cols; c++) {
+                putInt(game.getP2Payoff(r, c));
+            }
+        }
+        gameCount++;
+    }
+
+    /** Number of games written so far. */
+    public long getGameCount() {
+        return gameCount;
+    }
+
+    private void putInt(int value) throws IOException {
+        if (buffer.remaining() < 4) {
+            flush();
+        }
+        buffer.putInt(value);
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            ByteBuffer count = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+            count.putLong(gameCount).flip();
+            while (count.hasRemaining()) {
+                channel.write(count, 8 + count.position());
+            }
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,604 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Main's non-interactive mode: reads games from a file or stdin and writes
+ * one tab-separated result line per game, for use in pipelines.
+ *
+ * Games use the same format as BatchEvaluator: one game per line, with the
+ * number of rows, the number of columns, then P1's payoffs and P2's payoffs,
+ * each listed left to right, top to bottom. Blank lines and lines starting
+ * with '#' are skipped. Each output line starts with the game's number
+ * (counting from 1), followed by one column per requested analysis in the
+ * order below, with "-" marking a missing result:
+ *
+ *   --pure     pure equilibria as "row,col" pairs (menu option 1)
+ *   --mixed    "p q" for a 2x2 game, otherwise every equilibrium as P1's
+ *              probabilities and P2's separated by ';' (option 2); when
+ *              more than SupportEnumerationSolver.MAX_ENUMERATED_MOVES
+ *              moves per player are left after removing dominated moves,
+ *              only one equilibrium, found with Lemke-Howson
+ *   --best     P1's best response to each column, then P2's to each row,
+ *              in two columns (option 3)
+ *   --network  for a 2x2 help/harm game, who helps whom at each pure
+ *              equilibrium: "both", "none", "1>2" or "2>1" (option 4)
+ *   --path row,col,player,move
+ *              the deviation path from (row, col) after player switches to
+ *              move, as "row,col" squares ending in "cycle" if the path
+ *              came back to a square; can be given more than once
+ *
+ * With no analyses given, --pure --mixed --best is assumed, but the mixed
+ * column is only filled in for 2x2 games, so large games do not hold up the
+ * rest. A malformed game, or one with more than the maximum number of
+ * squares (DEFAULT_MAX_CELLS unless set), gets "error" and a reason instead
+ * of results. --cache size keeps every mixed equilibrium of up to size games
+ * larger than 2x2 in a GameCache, so games that only differ by relabeling
+ * moves or players are solved once. After cancel(), the game being
+ * analyzed gets a last "cancelled" column, since its results may be
+ * missing, and no more games are read.
+ *
+ * Input is parsed straight from bytes in 64 KB reads and results are
+ * formatted into a byte buffer that is written out between games once it
+ * holds 64 KB, so a game is never being analyzed while output is written
+ * and cancel() can interrupt the analysis without closing a channel. Payoffs
+ * are read into a buffer that only grows as payoffs actually arrive, so a
+ * line claiming a huge game fails on its missing payoffs rather than
+ * allocating for them. The payoff arrays, best-response index and work
+ * arrays are reused as long as consecutive games have the same size, so
+ * small games allocate almost nothing.
+ */
+public class HeadlessRunner {
+    private static final int BUFFER_SIZE = 1 << 16;
+    // 2048x2048, 32 MB of payoffs
+    public static final int DEFAULT_MAX_CELLS = 1 << 22;
+    private static final String USAGE = "Usage: java Main [--pure] [--mixed] [--best] [--network]"
+            + " [--path row,col,player,move]... [--cache size] [input file or -] [output file]";
+
+    private final boolean pure;
+    private final boolean mixed;
+    private final boolean best;
+    private final boolean network;
+    // each path is {row, col, player, move}
+    private final int[][] paths;
+    // whether the mixed column covers games larger than 2x2; not when it is only there by default
+    private boolean mixedLarge = true;
+    private GameCache cache;
+    private int maxCells = DEFAULT_MAX_CELLS;
+
+    // input
+    private InputStream in;
+    private final byte[] inBuffer = new byte[BUFFER_SIZE];
+    private int inPos;
+    private int inLimit;
+
+    // output
+    private OutputStream out;
+    private byte[] outBuffer = new byte[BUFFER_SIZE];
+    private int outPos;
+
+    // the thread analyzing a game, which cancel() interrupts; null while reading or writing
+    private Thread analyzing;
+    private boolean cancelled;
+
+    // payoffs of the game being read, P1's then P2's
+    private int[] values = new int[64];
+
+    // reused while the game size stays the same
+    private PayoffMatrix matrix;
+    private int[] p1Payoffs;
+    private int[] p2Payoffs;
+    private int[] cells;
+    private int[] path;
+    private long[] visited;
+
+    /** Creates a runner for the given analyses. */
+    public HeadlessRunner(boolean pure, boolean mixed, boolean best, boolean network, int[][] paths) {
+        this.pure = pure;
+        this.mixed = mixed;
+        this.best = best;
+        this.network = network;
+        this.paths = paths;
+    }
+
+    /** Sets the cache for mixed equilibria of games larger than 2x2 (null for none). */
+    public void setCache(GameCache cache) {
+        this.cache = cache;
+    }
+
+    /** Sets the largest number of squares a game can have; larger ones get an error. */
+    public void setMaxCells(int maxCells) {
+        if (maxCells <= 0) {
+            throw new IllegalArgumentException("maxCells must be positive");
+        }
+        this.maxCells = maxCells;
+    }
+
+    /**
+     * Stops run() after the game it is on, which can be called from any
+     * thread. An analysis in progress is interrupted, but reading and
+     * writing are not, so the results so far still reach the output.
+     */
+    public synchronized void cancel() {
+        cancelled = true;
+        if (analyzing != null) {
+            analyzing.interrupt();
+        }
+    }
+
+    /** Whether cancel() has been called. */
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** Marks the current thread as analyzing, returning false instead if the run was cancelled. */
+    private synchronized boolean startAnalysis() {
+        if (cancelled) {
+            return false;
+        }
+        analyzing = Thread.currentThread();
+        return true;
+    }
+
+    /** Ends the analysis, clearing an interrupt from cancel() so the output can be written. */
+    private synchronized void endAnalysis() {
+        analyzing = null;
+        Thread.interrupted();
+    }
+
+    /**
+     * Reads every game from input and writes its result line to output, in
+     * the same order. Output is flushed but neither stream is closed.
+     * Returns the number of games read.
+     */
+    public long run(InputStream input, OutputStream output) throws IOException {
+        in = input;
+        out = output;
+        inPos = 0;
+        inLimit = 0;
+        outPos = 0;
+        long gameNumber = 0;
+        while (!isCancelled() && skipBlankLines()) {
+            gameNumber++;
+            writeLong(gameNumber);
+            writeByte('\t');
+            String error = parseGame();
+            if (error != null) {
+                skipLine();
+                writeAscii("error\t");
+                writeAscii(error);
+            } else if (startAnalysis()) {
+                try {
+                    writeResults();
+                } finally {
+                    endAnalysis();
+                }
+            }
+            if (isCancelled()) {
+                writeAscii("\tcancelled");
+            }
+            writeByte('\n');
+            if (outPos >= BUFFER_SIZE) {
+                out.write(outBuffer, 0, outPos);
+                outPos = 0;
+            }
+        }
+        out.write(outBuffer, 0, outPos);
+        outPos = 0;
+        out.flush();
+        return gameNumber;
+    }
+
+    // ---- parsing ----
+
+    private int peek() throws IOException {
+        if (inPos == inLimit) {
+            inLimit = in.read(inBuffer, 0, BUFFER_SIZE);
+            inPos = 0;
+            if (inLimit <= 0) {
+                inLimit = 0;
+                return -1;
+            }
+        }
+        return inBuffer[inPos];
+    }
+
+    private static boolean isSpace(int b) {
+        return b == ' ' || b == '\t' || b == '\r';
+    }
+
+    /** Skips spaces and tabs (but not newlines) and returns the next byte, or -1 at the end. */
+    private int skipSpaces() throws IOException {
+        int b = peek();
+        while (isSpace(b)) {
+            inPos++;
+            b = peek();
+        }
+        return b;
+    }
+
+    /**
+     * Skips blank lines and comment lines, returning whether there is
+     * another game to read.
+     */
+    private boolean skipBlankLines() throws IOException {
+        while (true) {
+            int b = skipSpaces();
+            if (b == -1) {
+                return false;
+            } else if (b == '\n') {
+                inPos++;
+            } else if (b == '#') {
+                skipLine();
+            } else {
+                return true;
+            }
+        }
+    }
+
+    /** Skips to just past the end of the current line. */
+    private void skipLine() throws IOException {
+        int b = peek();
+        while (b != -1 && b != '\n') {
+            inPos++;
+            b = peek();
+        }
+        if (b == '\n') {
+            inPos++;
+        }
+    }
+
+    /** Whether another number starts on the current line. */
+    private boolean hasToken() throws IOException {
+        int b = skipSpaces();
+        return b != -1 && b != '\n';
+    }
+
+    /** Number of numbers left on the current line, which is consumed. */
+    private int countTokens() throws IOException {
+        int count = 0;
+        while (hasToken()) {
+            count++;
+            int b = peek();
+            while (b != -1 && b != '\n' && !isSpace(b)) {
+                inPos++;
+                b = peek();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Parses the number at the current position, which must be there (see
+     * hasToken()). Returns Long.MIN_VALUE if it is not a valid int.
+     */
+    private long parseInt() throws IOException {
+        int b = peek();
+        boolean negative = b == '-';
+        if (b == '-' || b == '+') {
+            inPos++;
+            b = peek();
+        }
+        long value = 0;
+        int digits = 0;
+        while (b >= '0' && b <= '9') {
+            value = value * 10 + (b - '0');
+            if (value > Integer.MAX_VALUE + 1L) {
+                value = Integer.MAX_VALUE + 2L;
+            }
+            digits++;
+            inPos++;
+            b = peek();
+        }
+        if (digits == 0 || (b != -1 && b != '\n' && !isSpace(b))) {
+            return Long.MIN_VALUE;
+        }
+        value = negative ? -value : value;
+        return value < Integer.MIN_VALUE || value > Integer.MAX_VALUE ? Long.MIN_VALUE : value;
+    }
+
+    /**
+     * Reads one game into the payoff arrays and sets up matrix for it.
+     * Returns null on success, or the reason the game is malformed, in which
+     * case the rest of the line still has to be skipped.
+     */
+    private String parseGame() throws IOException {
+        long rows = parseInt();
+        if (!hasToken()) {
+            return "missing dimensions";
+        }
+        long cols = parseInt();
+        if (rows <= 0 || cols <= 0 || rows * cols > maxCells) {
+            return "invalid dimensions";
+        }
+        int numRows = (int) rows;
+        int numCols = (int) cols;
+        int numCells = numRows * numCols;
+        int count = 2 * numCells;
+        for (int i = 0; i < count; i++) {
+            if (!hasToken()) {
+                return "expected " + count + " payoffs but found " + i;
+            }
+            long payoff = parseInt();
+            if (payoff == Long.MIN_VALUE) {
+                return "invalid payoff";
+            }
+            if (i == values.length) {
+                values = Arrays.copyOf(values, (int) Math.min(count, 2L * i));
+            }
+            values[i] = (int) payoff;
+        }
+        if (hasToken()) {
+            return "expected " + count + " payoffs but found " + (count + countTokens());
+        }
+        skipLine();
+
+        boolean sameSize = matrix != null && matrix.getNumRows() == numRows && matrix.getNumCols() == numCols;
+        if (sameSize) {
+            System.arraycopy(values, 0, p1Payoffs, 0, numCells);
+            System.arraycopy(values, numCells, p2Payoffs, 0, numCells);
+            matrix.refreshBestResponses();
+        } else {
+            p1Payoffs = Arrays.copyOfRange(values, 0, numCells);
+            p2Payoffs = Arrays.copyOfRange(values, numCells, count);
+            matrix = new PayoffMatrix(numRows, numCols, p1Payoffs, p2Payoffs);
+            cells = new int[numCells];
+            path = new int[matrix.getMaxDeviationPathLength()];
+            visited = new long[(numCells + 63) >>> 6];
+        }
+        return null;
+    }
+
+    // ---- analyses ----
+
+    private void writeResults() throws IOException {
+        int rows = matrix.getNumRows();
+        int cols = matrix.getNumCols();
+        boolean first = true;
+        int count = pure || network ? matrix.findPureNashEquilibria(cells) : 0;
+        if (pure) {
+            first = false;
+            if (count == 0) {
+                writeByte('-');
+            }
+            for (int i = 0; i < count; i++) {
+                if (i > 0) writeByte(' ');
+                writeCell(cells[i], cols);
+            }
+        }
+        if (mixed) {
+            if (!first) writeByte('\t');
+            first = false;
+            writeMixed();
+        }
+        if (best) {
+            if (!first) writeByte('\t');
+            first = false;
+            for (int c = 0; c < cols; c++) {
+                if (c > 0) writeByte(' ');
+                writeLong(matrix.bestRowIndex(c) + 1);
+            }
+            writeByte('\t');
+            for (int r = 0; r < rows; r++) {
+                if (r > 0) writeByte(' ');
+                writeLong(matrix.bestColIndex(r) + 1);
+            }
+        }
+        if (network) {
+            if (!first) writeByte('\t');
+            first = false;
+            if (rows != 2 || cols != 2 || count == 0) {
+                writeByte('-');
+            }
+            for (int i = 0; i < count && rows == 2 && cols == 2; i++) {
+                if (i > 0) writeByte(' ');
+                // move 1 is helping the other player, move 2 is harming them
+                boolean p1Helps = cells[i] / 2 == 0;
+                boolean p2Helps = cells[i] % 2 == 0;
+                writeAscii(p1Helps ? (p2Helps ? "both" : "1>2") : (p2Helps ? "2>1" : "none"));
+            }
+        }
+        for (int[] deviation : paths) {
+            if (!first) writeByte('\t');
+            first = false;
+            writePath(deviation, rows, cols);
+        }
+    }
+
+    private void writeMixed() throws IOException {
+        if (matrix.getNumRows() == 2 && matrix.getNumCols() == 2) {
+            ArrayList<Double> pq = matrix.findMixedNashEquilibrium();
+            if (pq == null) {
+                writeByte('-');
+            } else {
+                writeAscii(pq.get(0) + " " + pq.get(1));
+            }
+            return;
+        }
+        if (!mixedLarge) {
+            writeByte('-');
+            return;
+        }
+        List<StrategyProfile> equilibria = cache != null ? cache.findAllMixedNashEquilibria(matrix)
+                : matrix.findAllMixedNashEquilibria();
+        if (equilibria.isEmpty()) {
+            writeByte('-');
+        }
+        for (int i = 0; i < equilibria.size(); i++) {
+            if (i > 0) writeByte(' ');
+            writeStrategy(equilibria.get(i).getP1Strategy());
+            writeByte(';');
+            writeStrategy(equilibria.get(i).getP2Strategy());
+        }
+    }
+
+    private void writeStrategy(double[] strategy) throws IOException {
+        for (int i = 0; i < strategy.length; i++) {
+            if (i > 0) writeByte(',');
+            if (strategy[i] == 0) {
+                writeByte('0');
+            } else if (strategy[i] == 1) {
+                writeByte('1');
+            } else {
+                writeAscii(Double.toString(strategy[i]));
+            }
+        }
+    }
+
+    private void writePath(int[] deviation, int rows, int cols) throws IOException {
+        int row = deviation[0];
+        int col = deviation[1];
+        int player = deviation[2];
+        int move = deviation[3];
+        int moves = player == 1 ? rows : cols;
+        if (row > rows || col > cols || move > moves) {
+            writeByte('-');
+            return;
+        }
+        int length = matrix.simulateDeviationPath(row, col, player, move, path, visited);
+        boolean cycle = length < 0;
+        length = Math.abs(length);
+        for (int i = 0; i < length; i++) {
+            if (i > 0) writeByte(' ');
+            writeCell(path[i], cols);
+        }
+        if (cycle) {
+            writeAscii(" cycle");
+        }
+    }
+
+    // ---- output ----
+
+    private void writeByte(int b) throws IOException {
+        if (outPos == outBuffer.length) {
+            outBuffer = Arrays.copyOf(outBuffer, outPos * 2);
+        }
+        outBuffer[outPos++] = (byte) b;
+    }
+
+    private void writeAscii(String s) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            writeByte(s.charAt(i));
+        }
+    }
+
+    private void writeLong(long value) throws IOException {
+        if (value < 0) {
+            writeByte('-');
+            value = -value;
+        }
+        if (value >= 10) {
+            writeLong(value / 10);
+        }
+        writeByte((int) ('0' + value % 10));
+    }
+
+    /** Writes the 0-indexed cell code as "row,col" counting from 1. */
+    private void writeCell(int cell, int cols) throws IOException {
+        writeLong(cell / cols + 1);
+        writeByte(',');
+        writeLong(cell % cols + 1);
+    }
+
+    /**
+     * Parses the command-line arguments (see the class comment and USAGE),
+     * throwing IllegalArgumentException if they are invalid.
+     */
+    static HeadlessRunner fromArgs(String[] args, List<String> files) {
+        boolean pure = false;
+        boolean mixed = false;
+        boolean best = false;
+        boolean network = false;
+        List<int[]> paths = new ArrayList<>();
+        int cacheSize = 0;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--pure")) {
+                pure = true;
+            } else if (arg.equals("--mixed")) {
+                mixed = true;
+            } else if (arg.equals("--best")) {
+                best = true;
+            } else if (arg.equals("--network")) {
+                network = true;
+            } else if (arg.equals("--path")) {
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("--path needs row,col,player,move");
+                }
+                paths.add(parsePath(args[++i]));
+            } else if (arg.equals("--cache")) {
+                try {
+                    cacheSize = Integer.parseInt(i + 1 < args.length ? args[++i] : "");
+                } catch (NumberFormatException e) {
+                    cacheSize = 0;
+                }
+                if (cacheSize <= 0) {
+                    throw new IllegalArgumentException("--cache needs a positive size");
+                }
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option " + arg);
+            } else {
+                files.add(arg);
+            }
+        }
+        if (files.size() > 2) {
+            throw new IllegalArgumentException("Too many files");
+        }
+        boolean defaults = !pure && !mixed && !best && !network && paths.isEmpty();
+        if (defaults) {
+            pure = true;
+            mixed = true;
+            best = true;
+        }
+        HeadlessRunner runner = new HeadlessRunner(pure, mixed, best, network, paths.toArray(new int[0][]));
+        runner.mixedLarge = !defaults;
+        if (cacheSize > 0) {
+            runner.setCache(new GameCache(cacheSize));
+        }
+        return runner;
+    }
+
+    private static int[] parsePath(String spec) {
+        String[] parts = spec.split(",");
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("--path needs row,col,player,move");
+        }
+        int[] deviation = new int[4];
+        try {
+            for (int i = 0; i < 4; i++) {
+                deviation[i] = Integer.parseInt(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("--path needs row,col,player,move");
+        }
+        if (deviation[0] <= 0 || deviation[1] <= 0 || deviation[3] <= 0
+                || (deviation[2] != 1 && deviation[2] != 2)) {
+            throw new IllegalArgumentException("Invalid --path " + spec);
+        }
+        return deviation;
+    }
+
+    /** Runs the headless mode for Main's command-line arguments. */
+    public static void main(String[] args) throws IOException {
+        List<String> files = new ArrayList<>();
+        HeadlessRunner runner;
+        try {
+            runner = fromArgs(args, files);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+        InputStream inStream = !files.isEmpty() && !files.get(0).equals("-")
+                ? new FileInputStream(files.get(0)) : System.in;
+        OutputStream outStream = files.size() > 1 ? new FileOutputStream(files.get(1)) : System.out;
+        try (inStream; outStream) {
+            long start = System.nanoTime();
+            long games = runner.run(inStream, outStream);
+            System.err.println("Analyzed " + games + " games in "
+                    + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        }
+    }
+}
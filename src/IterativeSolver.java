@@ -0,0 +1,181 @@
+/**
+ * Common driver for the learning solvers, which find an approximate Nash
+ * Equilibrium of games too big for the exact solvers by having the players
+ * repeatedly react to each other and averaging what they play.
+ *
+ * Subclasses keep, for each player, how much weight each move has in their
+ * average strategy and each move's cumulative payoff against the other
+ * player's history. Dividing by the total weight gives the payoffs against
+ * the other player's average strategy, so the Nash gap of the averages (how
+ * much the two players could gain together by switching to a best response)
+ * takes time linear in the number of moves to compute.
+ *
+ * Every reportInterval iterations the gap is passed to the listener, if there
+ * is one, and the solver stops once the gap is at most the target gap or the
+ * time budget runs out.
+ */
+public abstract class IterativeSolver {
+    protected final BimatrixGame matrix;
+    protected final int rows;
+    protected final int cols;
+    // 0-indexed copies of the payoffs, row-major
+    protected final int[] p1Payoffs;
+    protected final int[] p2Payoffs;
+
+    // weight of each move in each player's average strategy
+    protected final double[] p1StrategySum;
+    protected final double[] p2StrategySum;
+    // cumulative payoff of each move against the other player's history
+    protected final double[] p1PayoffSum;
+    protected final double[] p2PayoffSum;
+    // total weight, the same for both players
+    protected double totalWeight;
+
+    private GapListener listener;
+    private int reportInterval = 1000;
+    private double targetGap = 0;
+    private long timeBudgetNanos = Long.MAX_VALUE;
+    private long iterations;
+    private double gap = Double.POSITIVE_INFINITY;
+
+    /** Listener for the Nash gap of the average strategies as the solver runs. */
+    public interface GapListener {
+        void onGap(long iteration, double gap);
+    }
+
+    protected IterativeSolver(BimatrixGame matrix) {
+        this.matrix = matrix;
+        rows = matrix.getNumRows();
+        cols = matrix.getNumCols();
+        p1Payoffs = new int[rows * cols];
+        p2Payoffs = new int[rows * cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                p1Payoffs[r * cols + c] = matrix.getP1Payoff(r + 1, c + 1);
+                p2Payoffs[r * cols + c] = matrix.getP2Payoff(r + 1, c + 1);
+            }
+        }
+        p1StrategySum = new double[rows];
+        p2StrategySum = new double[cols];
+        p1PayoffSum = new double[rows];
+        p2PayoffSum = new double[cols];
+    }
+
+    /** Sets the listener that gets the gap every reportInterval iterations. */
+    public void setListener(GapListener listener) {
+        this.listener = listener;
+    }
+
+    /** Sets how many iterations pass between gap checks (1000 by default). */
+    public void setReportInterval(int reportInterval) {
+        if (reportInterval <= 0) {
+            throw new IllegalArgumentException("Report interval must be positive");
+        }
+        this.reportInterval = reportInterval;
+    }
+
+    /** Stops the solver once the gap is at most targetGap. */
+    public void setTargetGap(double targetGap) {
+        this.targetGap = targetGap;
+    }
+
+    /** Stops the solver at the first gap check after the given number of milliseconds. */
+    public void setTimeBudget(long millis) {
+        timeBudgetNanos = millis * 1_000_000;
+    }
+
+    /** Total iterations run so far. */
+    public long getIterations() {
+        return iterations;
+    }
+
+    /** Nash gap of the average strategies at the last check. */
+    public double getGap() {
+        return gap;
+    }
+
+    /**
+     * Runs up to maxIterations more iterations, stopping early on the target
+     * gap or the time budget, and returns the average strategies. Calling it
+     * again continues where the last call stopped.
+     */
+    public StrategyProfile solve(long maxIterations) {
+        long start = System.nanoTime();
+        for (long i = 1; i <= maxIterations; i++) {
+            iterate();
+            iterations++;
+            if (i % reportInterval == 0 || i == maxIterations) {
+                gap = computeGap();
+                if (listener != null) {
+                    listener.onGap(iterations, gap);
+                }
+                if (gap <= targetGap || System.nanoTime() - start >= timeBudgetNanos) {
+                    break;
+                }
+            }
+        }
+        return getAverageProfile();
+    }
+
+    /** Runs one iteration, adding to the strategy and payoff sums. */
+    protected abstract void iterate();
+
+    /** Adds P1's payoffs against the given column, times weight, to p1PayoffSum. */
+    protected void addColumn(int col, double weight) {
+        for (int r = 0; r < rows; r++) {
+            p1PayoffSum[r] += weight * p1Payoffs[r * cols + col];
+        }
+    }
+
+    /** Adds P2's payoffs against the given row, times weight, to p2PayoffSum. */
+    protected void addRow(int row, double weight) {
+        int base = row * cols;
+        for (int c = 0; c < cols; c++) {
+            p2PayoffSum[c] += weight * p2Payoffs[base + c];
+        }
+    }
+
+    /**
+     * Sum over both players of their best payoff against the other player's
+     * average strategy minus their payoff from their own average strategy.
+     */
+    private double computeGap() {
+        if (totalWeight == 0) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return playerGap(p1StrategySum, p1PayoffSum) + playerGap(p2StrategySum, p2PayoffSum);
+    }
+
+    private double playerGap(double[] strategySum, double[] payoffSum) {
+        double best = Double.NEGATIVE_INFINITY;
+        double average = 0;
+        for (int i = 0; i < payoffSum.length; i++) {
+            best = Math.max(best, payoffSum[i]);
+            average += strategySum[i] * payoffSum[i];
+        }
+        return best / totalWeight - average / (totalWeight * totalWeight);
+    }
+
+    /** Returns the average strategies and the expected payoffs when both play them. */
+    public StrategyProfile getAverageProfile() {
+        double[] x = new double[rows];
+        double[] y = new double[cols];
+        for (int r = 0; r < rows; r++) {
+            x[r] = totalWeight == 0 ? 1.0 / rows : p1StrategySum[r] / totalWeight;
+        }
+        for (int c = 0; c < cols; c++) {
+            y[c] = totalWeight == 0 ? 1.0 / cols : p2StrategySum[c] / totalWeight;
+        }
+        double p1Payoff = 0;
+        double p2Payoff = 0;
+        for (int r = 0; r < rows; r++) {
+            if (x[r] == 0) continue;
+            for (int c = 0; c < cols; c++) {
+                double weight = x[r] * y[c];
+                p1Payoff += weight * p1Payoffs[r * cols + c];
+                p2Payoff += weight * p2Payoffs[r * cols + c];
+            }
+        }
+        return new StrategyProfile(x, y, p1Payoff, p2Payoff);
+    }
+}
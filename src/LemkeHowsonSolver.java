@@ -0,0 +1,257 @@
+import java.util.Arrays;
+
+/**
+ * Finds one Nash Equilibrium of a nondegenerate game with the Lemke-Howson
+ * complementary pivoting algorithm. The game is described by two dense
+ * tableaux, one for P1's strategy (with a row per P2 move) and one for P2's
+ * (with a row per P1 move), each stored as a single row-major double[] and
+ * pivoted in place. Only the nonbasic variables get a column, so a pivot
+ * touches rows x (moves of one player + 1) entries.
+ *
+ * Labels are numbered like moves: labels 1 to numRows are P1's moves and
+ * labels numRows + 1 to numRows + numCols are P2's moves. The search starts
+ * by dropping the missed label, and different missed labels can lead to
+ * different equilibria (and to paths of very different lengths).
+ */
+public class LemkeHowsonSolver {
+    private static final double EPS = 1e-12;
+
+    private final BimatrixGame matrix;
+    private final int rows;
+    private final int cols;
+    // P1's side: one row per P2 move, a column per nonbasic variable, then the right-hand side
+    private final Tableau xTableau;
+    // P2's side: one row per P1 move, a column per nonbasic variable, then the right-hand side
+    private final Tableau yTableau;
+
+    /** Allocates the tableaux for the given game; they are filled in by solve. */
+    public LemkeHowsonSolver(BimatrixGame matrix) {
+        this.matrix = matrix;
+        rows = matrix.getNumRows();
+        cols = matrix.getNumCols();
+        xTableau = new Tableau(cols, rows, rows + cols);
+        yTableau = new Tableau(rows, cols, rows + cols);
+    }
+
+    /**
+     * Returns the equilibrium reached by starting with the given missed
+     * label, or null if the label is out of range or the pivoting does not
+     * finish (which can only happen for degenerate games).
+     */
+    public StrategyProfile solve(int missedLabel) {
+        return solve(missedLabel, Long.MAX_VALUE);
+    }
+
+    /**
+     * Same as solve(missedLabel), but gives up and returns null after
+     * maxPivots pivots so a caller can retry with another label. Also
+     * returns null as soon as the calling thread is interrupted, since on
+     * large games the pivoting can take a long time.
+     */
+    public StrategyProfile solve(int missedLabel, long maxPivots) {
+        if (missedLabel <= 0 || missedLabel > rows + cols) {
+            return null;
+        }
+        reset();
+
+        int missed = missedLabel - 1;
+        int entering = missed;
+        // x variables are labels 0..rows-1 and start out nonbasic in xTableau; y variables in yTableau
+        Tableau current = missed < rows ? xTableau : yTableau;
+        for (long step = 0; step < maxPivots; step++) {
+            if (Thread.currentThread().isInterrupted()) {
+                return null;
+            }
+            int leaving = current.pivot(entering);
+            if (leaving < 0) {
+                return null;
+            }
+            if (leaving == missed) {
+                return buildProfile();
+            }
+            entering = leaving;
+            current = current == xTableau ? yTableau : xTableau;
+        }
+        return null;
+    }
+
+    /**
+     * Fills both tableaux with the payoffs rescaled into [1, 2]. Any positive
+     * affine rescaling keeps the equilibria the same, and keeping every entry
+     * positive and of similar size keeps the pivoting well conditioned.
+     */
+    private void reset() {
+        int minA = Integer.MAX_VALUE;
+        int maxA = Integer.MIN_VALUE;
+        int minB = Integer.MAX_VALUE;
+        int maxB = Integer.MIN_VALUE;
+        for (int r = 1; r <= rows; r++) {
+            for (int c = 1; c <= cols; c++) {
+                minA = Math.min(minA, matrix.getP1Payoff(r, c));
+                maxA = Math.max(maxA, matrix.getP1Payoff(r, c));
+                minB = Math.min(minB, matrix.getP2Payoff(r, c));
+                maxB = Math.max(maxB, matrix.getP2Payoff(r, c));
+            }
+        }
+        double scaleA = maxA > minA ? 1.0 / ((double) maxA - minA) : 1;
+        double scaleB = maxB > minB ? 1.0 / ((double) maxB - minB) : 1;
+
+        // B^T x + s = 1: x (labels 0..rows-1) nonbasic, slacks (labels rows..) basic
+        xTableau.reset(0, rows);
+        double[] t = xTableau.cells;
+        int width = xTableau.width;
+        for (int c = 0; c < cols; c++) {
+            for (int r = 0; r < rows; r++) {
+                t[c * width + r] = 1 + ((double) matrix.getP2Payoff(r + 1, c + 1) - minB) * scaleB;
+            }
+        }
+
+        // r + A y = 1: y (labels rows..) nonbasic, slacks (labels 0..rows-1) basic
+        yTableau.reset(rows, 0);
+        t = yTableau.cells;
+        width = yTableau.width;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                t[r * width + c] = 1 + ((double) matrix.getP1Payoff(r + 1, c + 1) - minA) * scaleA;
+            }
+        }
+    }
+
+    /** Reads the basic x and y values off the tableaux and normalizes them. */
+    private StrategyProfile buildProfile() {
+        double[] x = new double[rows];
+        double[] y = new double[cols];
+        for (int i = 0; i < xTableau.height; i++) {
+            int label = xTableau.basis[i];
+            if (label < rows) {
+                x[label] = xTableau.rhs(i);
+            }
+        }
+        for (int i = 0; i < yTableau.height; i++) {
+            int label = yTableau.basis[i];
+            if (label >= rows) {
+                y[label - rows] = yTableau.rhs(i);
+            }
+        }
+        normalize(x);
+        normalize(y);
+
+        double p1Payoff = 0;
+        double p2Payoff = 0;
+        for (int r = 0; r < rows; r++) {
+            if (x[r] == 0) continue;
+            for (int c = 0; c < cols; c++) {
+                double weight = x[r] * y[c];
+                p1Payoff += weight * matrix.getP1Payoff(r + 1, c + 1);
+                p2Payoff += weight * matrix.getP2Payoff(r + 1, c + 1);
+            }
+        }
+        return new StrategyProfile(x, y, p1Payoff, p2Payoff);
+    }
+
+    private static void normalize(double[] strategy) {
+        double sum = 0;
+        for (double v : strategy) {
+            sum += v;
+        }
+        for (int i = 0; i < strategy.length; i++) {
+            strategy[i] /= sum;
+        }
+    }
+
+    /**
+     * A tableau in dictionary form: each row reads
+     * sum(cells[row][col] * nonbasic[col]) + basic[row] = rhs[row].
+     */
+    private static class Tableau {
+        private final int height;
+        private final int numNonbasic;
+        private final int width;
+        private final double[] cells;
+        // label of the basic variable in each row / nonbasic variable in each column
+        private final int[] basis;
+        private final int[] nonbasic;
+        // column of each label while it is nonbasic, or -1 while it is basic
+        private final int[] columnOf;
+
+        Tableau(int height, int numNonbasic, int numLabels) {
+            this.height = height;
+            this.numNonbasic = numNonbasic;
+            this.width = numNonbasic + 1;
+            cells = new double[height * width];
+            basis = new int[height];
+            nonbasic = new int[numNonbasic];
+            columnOf = new int[numLabels];
+        }
+
+        /**
+         * Clears the coefficients, sets every right-hand side to 1 and makes
+         * the labels starting at firstNonbasic nonbasic and the ones starting
+         * at firstBasic basic.
+         */
+        void reset(int firstNonbasic, int firstBasic) {
+            Arrays.fill(cells, 0);
+            Arrays.fill(columnOf, -1);
+            for (int i = 0; i < height; i++) {
+                cells[i * width + numNonbasic] = 1;
+                basis[i] = firstBasic + i;
+            }
+            for (int j = 0; j < numNonbasic; j++) {
+                nonbasic[j] = firstNonbasic + j;
+                columnOf[firstNonbasic + j] = j;
+            }
+        }
+
+        double rhs(int row) {
+            return cells[row * width + numNonbasic];
+        }
+
+        /**
+         * Brings the entering label into the basis using the minimum ratio
+         * test and returns the label that left, or -1 if no row limits it.
+         */
+        int pivot(int entering) {
+            int pc = columnOf[entering];
+            int pr = -1;
+            double bestRatio = Double.POSITIVE_INFINITY;
+            for (int r = 0; r < height; r++) {
+                double coef = cells[r * width + pc];
+                if (coef > EPS) {
+                    double ratio = cells[r * width + numNonbasic] / coef;
+                    if (ratio < bestRatio) {
+                        bestRatio = ratio;
+                        pr = r;
+                    }
+                }
+            }
+            if (pr < 0) {
+                return -1;
+            }
+
+            int top = pr * width;
+            double inv = 1.0 / cells[top + pc];
+            for (int c = 0; c < width; c++) {
+                cells[top + c] *= inv;
+            }
+            // the leaving variable takes over the entering column with coefficient 1 / pivot
+            cells[top + pc] = inv;
+            for (int r = 0; r < height; r++) {
+                if (r == pr) continue;
+                int base = r * width;
+                double factor = cells[base + pc];
+                if (factor == 0) continue;
+                for (int c = 0; c < width; c++) {
+                    cells[base + c] -= factor * cells[top + c];
+                }
+                cells[base + pc] = -factor * inv;
+            }
+
+            int leaving = basis[pr];
+            basis[pr] = entering;
+            nonbasic[pc] = leaving;
+            columnOf[entering] = -1;
+            columnOf[leaving] = pc;
+            return leaving;
+        }
+    }
+}
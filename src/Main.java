@@ -1,8 +1,20 @@
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--serve")) {
+            EquilibriumServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        if (args.length > 0) {
+            // any other arguments select the non-interactive mode
+            HeadlessRunner.main(args);
+            return;
+        }
         Scanner scanner = new Scanner(System.in);
         System.out.println("Welcome to the Payoff Matrices Explorer!");
         System.out.println("First, let's create your payoff matrix for Player 1" +
@@ -57,6 +69,7 @@ public class Main {
                 " translate to social networks represented in a graph setting.");
         System.out.println("5. Edit your matrix and study to study the effects of your changes" +
                 " after.");
+        System.out.println("6. Evolve a population of each player under replicator dynamics.");
         System.out.println("Type 'exit' to quit.\n");
 
         while (true) {
@@ -86,7 +99,23 @@ public class Main {
                 }
             } else if (input.equals("2")) {
                 ArrayList<Double> mixedPQ = matrix.findMixedNashEquilibrium();
-                if (mixedPQ == null) {
+                if (mixedPQ == null && matrix.getNumMoves() != 2) {
+                    ReducedGame reduced = new ReducedGame(matrix);
+                    List<StrategyProfile> equilibria = matrix.findAllMixedNashEquilibria(reduced);
+                    if (SupportEnumerationSolver.canEnumerate(reduced.getGame())) {
+                        System.out.println("The Nash Equilibria of this matrix, given as the " +
+                                "probability each player plays each of their moves, are: ");
+                    } else if (equilibria.isEmpty()) {
+                        System.out.println("This matrix is too large to list every equilibrium, and the " +
+                                "Lemke-Howson algorithm did not reach one in time.");
+                    } else {
+                        System.out.println("This matrix is too large to list every equilibrium, so here " +
+                                "is one found with the Lemke-Howson algorithm: ");
+                    }
+                    for (StrategyProfile profile : equilibria) {
+                        System.out.println(profile);
+                    }
+                } else if (mixedPQ == null) {
                     System.out.println("Matrix is either not 2x2, or no valid values" +
                             " for p and q exist!");
                 } else {
@@ -95,6 +124,11 @@ public class Main {
                     double q = mixedPQ.get(1);
                     System.out.println("p = " + p + "; q = " + q);
                 }
+                StrategyProfile minimax = matrix.findMinimaxEquilibrium();
+                if (minimax != null) {
+                    System.out.println("This is a constant-sum game, so every equilibrium gives P1 the " +
+                            "same payoff, the value of the game: " + minimax.getP1Payoff());
+                }
             } else if (input.equals("3")) {
                 System.out.println("Enter the player (1 or 2) you want to know their best response for.");
                 while (!scanner.hasNextInt()) {
@@ -174,6 +208,43 @@ public class Main {
                                         " disconnected graph.");
                             }
                         }
+                        System.out.println("To test this, type the number of people in a social" +
+                                " network to simulate (ex. 1000000), or 0 to skip.");
+                        while (!scanner.hasNextInt()) {
+                            System.out.println("Please enter a valid number");
+                            scanner.next();
+                        }
+                        int people = scanner.nextInt();
+                        if (people > 0) {
+                            System.out.println("Type the average number of friends each person has (ex. 10).");
+                            while (!scanner.hasNextInt()) {
+                                System.out.println("Please enter a valid number");
+                                scanner.next();
+                            }
+                            int friends = scanner.nextInt();
+                            // everyone starts on a random move and keeps switching to their best
+                            // response to all their friends until nobody wants to change
+                            NetworkGame game = new NetworkGame(matrix,
+                                    SocialNetwork.random(people, friends, System.nanoTime()));
+                            game.randomizeMoves(System.nanoTime());
+                            int rounds = game.run(false, 1000);
+                            if (rounds > 0) {
+                                System.out.println("After " + rounds + " rounds of everyone playing" +
+                                        " their best response, nobody wants to change their move.");
+                            } else {
+                                System.out.println("After " + -rounds + " rounds, people were still" +
+                                        " changing their moves.");
+                            }
+                            NetworkGame.ComponentStats stats = game.getComponentStats();
+                            System.out.print(stats);
+                            if (stats.getLargestComponentFraction() > 0.5) {
+                                System.out.println("Most people ended up in one strongly connected" +
+                                        " group, so the graph is mostly connected.");
+                            } else {
+                                System.out.println("No group holds most of the people, so the graph" +
+                                        " is mostly disconnected.");
+                            }
+                        }
                     }
                 }
             } else if (input.equals("5")) {
@@ -216,7 +287,31 @@ public class Main {
                         p2Payoffs[k][l] = scanner.nextInt();
                     }
                 }
-                matrix = new PayoffMatrix(numMoves, p1Payoffs, p2Payoffs);
+                if (numMoves == matrix.getNumMoves()) {
+                    // same size, so only the squares that changed need their best responses updated
+                    for (int i = 0; i < numMoves; i++) {
+                        for (int j = 0; j < numMoves; j++) {
+                            matrix.setPayoffs(i + 1, j + 1, p1Payoffs[i][j], p2Payoffs[i][j]);
+                        }
+                    }
+                } else {
+                    matrix = new PayoffMatrix(numMoves, p1Payoffs, p2Payoffs);
+                }
+            } else if (input.equals("6")) {
+                System.out.println("Enter the number of steps to evolve the populations for (ex. 100000).");
+                while (!scanner.hasNextInt()) {
+                    System.out.println("Please enter a valid number");
+                    scanner.next();
+                }
+                int numSteps = scanner.nextInt();
+                System.out.println("Starting with every move equally common in both populations, " +
+                        "the average share of each move and average payoffs were: ");
+                ReplicatorDynamics dynamics = new ReplicatorDynamics(matrix, 0.1);
+                // report 10 windows, each averaged over its steps
+                dynamics.run(numSteps, Math.max(1, numSteps / 10),
+                        (step, p1Shares, p2Shares, p1Payoff, p2Payoff) ->
+                                System.out.println("Up to step " + step + ": " + new StrategyProfile(
+                                        p1Shares, p2Shares, p1Payoff, p2Payoff)));
             }
         }
     }
@@ -1,28 +1,58 @@
 import javax.swing.*;
-import javax.swing.border.Border;
 import java.awt.*;
+import java.awt.datatransfer.DataFlavor;
+import java.awt.datatransfer.UnsupportedFlavorException;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
 public class MainGUI {
+    // listing more equilibria than this only floods the text box
+    private static final int MAX_LISTED_EQUILIBRIA = 1000;
+    // rows searched for pure equilibria between progress updates
+    private static final int ROWS_PER_STEP = 64;
+
     private JFrame frame;
     private JPanel mainPanel;
     private JTextArea outputArea;
     private JTextField inputField;
+    private JButton submitButton;
     private PayoffMatrix matrix;
     private int numMoves = 2; // default 2 moves
     private int[][] p1Payoffs;
     private int[][] p2Payoffs;
     private JPanel matrixPanel;
+    private PayoffTableModel tableModel;
+    private JTable matrixTable;
+    private JList<String> rowHeader;
+    private JPanel taskPanel;
+    private JProgressBar progressBar;
+    private SwingWorker<?, ?> runningTask;
     private JPanel graphPanel;
     private JLabel graphImageLabel;
+    // the graph image being shown, where the view is on it, and the one being drawn
+    private BestResponseGraphImage graphImage;
+    private BufferedImage graphView;
+    private double graphScale;
+    private double graphX;
+    private double graphY;
+    private SwingWorker<BestResponseGraphImage, Void> graphTask;
     private enum InputState { MAIN_MENU, WAITING_FOR_PLAYER, WAITING_FOR_MOVE,
         WAITING_FOR_EQUILIBRIUM, WAITING_FOR_DEVIATING_PLAYER,
         WAITING_FOR_DEVIATION_MOVE }
     private InputState currentState = InputState.MAIN_MENU;
     private int currentPlayer;
     private ArrayList<Integer> currentEq;
+    // cell codes of the pure equilibria listed for the deviation analysis
+    private int[] currentEquilibria;
 
 
     public MainGUI() {
@@ -56,7 +86,7 @@ public class MainGUI {
                 inputField.setText("");
             }
         });
-        JButton submitButton = new JButton("Submit");
+        submitButton = new JButton("Submit");
         submitButton.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent e) {
                 processInput(inputField.getText());
@@ -68,20 +98,40 @@ public class MainGUI {
         inputPanel.add(inputField, BorderLayout.CENTER);
         inputPanel.add(submitButton, BorderLayout.EAST);
 
+        // progress of the analysis running in the background, hidden the rest of the time
+        taskPanel = new JPanel(new BorderLayout());
+        progressBar = new JProgressBar(0, 100);
+        progressBar.setStringPainted(true);
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                if (runningTask != null) {
+                    runningTask.cancel(true);
+                }
+            }
+        });
+        taskPanel.add(progressBar, BorderLayout.CENTER);
+        taskPanel.add(cancelButton, BorderLayout.EAST);
+        taskPanel.setVisible(false);
+        inputPanel.add(taskPanel, BorderLayout.NORTH);
+
         mainPanel.add(inputPanel, BorderLayout.SOUTH);
 
         // panel on the right to show the matrix
-        matrixPanel = new JPanel();
+        matrixPanel = new JPanel(new BorderLayout());
         matrixPanel.setBorder(BorderFactory.createTitledBorder("Payoff Matrix"));
         matrixPanel.setPreferredSize(new Dimension(350, 350));
+        createMatrixTable();
         mainPanel.add(matrixPanel, BorderLayout.EAST);
 
         // graph vis panel
         graphPanel = new JPanel(new BorderLayout());
-        graphPanel.setBorder(BorderFactory.createTitledBorder("Social Network Graph"));
+        graphPanel.setBorder(BorderFactory.createTitledBorder("Best Response Graph"));
+        graphPanel.setPreferredSize(new Dimension(350, 350));
         graphImageLabel = new JLabel();
         graphImageLabel.setHorizontalAlignment(SwingConstants.CENTER);
         graphPanel.add(graphImageLabel, BorderLayout.CENTER);
+        createGraphView();
 
         // get mat and graph panels together
         JPanel rightPanel = new JPanel(new GridLayout(2, 1));
@@ -94,11 +144,186 @@ public class MainGUI {
     }
 
 
+    /**
+     * Sets up the table showing the payoff matrix. Only the squares scrolled
+     * into view are ever painted, so large matrices scroll as smoothly as
+     * small ones.
+     */
+    private void createMatrixTable() {
+        tableModel = new PayoffTableModel(null);
+        matrixTable = new JTable(tableModel) {
+            // stretch small matrices to fill the panel, scroll sideways through big ones
+            @Override
+            public boolean getScrollableTracksViewportWidth() {
+                return getParent() != null && getPreferredSize().width < getParent().getWidth();
+            }
+        };
+        matrixTable.setAutoResizeMode(JTable.AUTO_RESIZE_ALL_COLUMNS);
+        matrixTable.setDefaultRenderer(Object.class, new PayoffTableModel.CellRenderer());
+        matrixTable.setRowHeight(2 * matrixTable.getFontMetrics(matrixTable.getFont()).getHeight() + 6);
+        matrixTable.setCellSelectionEnabled(true);
+        matrixTable.setGridColor(Color.BLACK);
+        matrixTable.getTableHeader().setReorderingAllowed(false);
+
+        rowHeader = new JList<>();
+        rowHeader.setFixedCellHeight(matrixTable.getRowHeight());
+        rowHeader.setFixedCellWidth(70);
+        rowHeader.setBackground(new Color(240, 240, 240));
+        rowHeader.setFocusable(false);
+        ((DefaultListCellRenderer) rowHeader.getCellRenderer()).setHorizontalAlignment(SwingConstants.CENTER);
+
+        // player label
+        JPanel cornerPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 0));
+        cornerPanel.setBackground(new Color(240, 240, 240));
+        JLabel p1Label = new JLabel("P1");
+        p1Label.setForeground(Color.BLUE);
+        p1Label.setFont(p1Label.getFont().deriveFont(Font.BOLD));
+        JLabel p2Label = new JLabel("P2");
+        p2Label.setForeground(Color.RED);
+        p2Label.setFont(p2Label.getFont().deriveFont(Font.BOLD));
+        cornerPanel.add(p1Label);
+        cornerPanel.add(new JLabel("\\"));
+        cornerPanel.add(p2Label);
+
+        JScrollPane tableScroll = new JScrollPane(matrixTable);
+        tableScroll.setRowHeaderView(rowHeader);
+        tableScroll.setCorner(JScrollPane.UPPER_LEFT_CORNER, cornerPanel);
+        matrixPanel.add(tableScroll, BorderLayout.CENTER);
+    }
+
+    /**
+     * Lets the graph be zoomed with the mouse wheel, moved by dragging and
+     * fit back into view with a double click. These only copy part of an
+     * image that was already drawn, so they stay smooth on big graphs.
+     */
+    private void createGraphView() {
+        graphImageLabel.setToolTipText("Scroll to zoom, drag to move, double-click to fit");
+        MouseAdapter mouse = new MouseAdapter() {
+            private Point dragFrom;
+
+            public void mousePressed(MouseEvent e) {
+                dragFrom = e.getPoint();
+            }
+
+            public void mouseDragged(MouseEvent e) {
+                if (graphImage == null || dragFrom == null) return;
+                graphX -= (e.getX() - dragFrom.x) / graphScale;
+                graphY -= (e.getY() - dragFrom.y) / graphScale;
+                dragFrom = e.getPoint();
+                refreshGraphView();
+            }
+
+            public void mouseClicked(MouseEvent e) {
+                if (graphImage != null && e.getClickCount() == 2) {
+                    fitGraph();
+                    refreshGraphView();
+                }
+            }
+
+            public void mouseWheelMoved(MouseWheelEvent e) {
+                if (graphImage == null) return;
+                // keep the square under the pointer where it is
+                double factor = Math.pow(1.25, -e.getPreciseWheelRotation());
+                double pointerX = graphX + e.getX() / graphScale;
+                double pointerY = graphY + e.getY() / graphScale;
+                graphScale = Math.max(0.05, Math.min(400, graphScale * factor));
+                graphX = pointerX - e.getX() / graphScale;
+                graphY = pointerY - e.getY() / graphScale;
+                refreshGraphView();
+            }
+        };
+        graphImageLabel.addMouseListener(mouse);
+        graphImageLabel.addMouseMotionListener(mouse);
+        graphImageLabel.addMouseWheelListener(mouse);
+        graphImageLabel.addComponentListener(new ComponentAdapter() {
+            public void componentResized(ComponentEvent e) {
+                refreshGraphView();
+            }
+        });
+    }
+
+    /**
+     * Draws the best-response graph of the current matrix, with the given
+     * deviation path (which may be null) on top, in the background, and
+     * shows it once it is done. A drawing still in progress is abandoned.
+     */
+    private void renderGraph(int[] path, int pathLength) {
+        if (graphTask != null) {
+            graphTask.cancel(true);
+        }
+        if (graphImage == null) {
+            graphImageLabel.setText("Drawing the best response graph...");
+        }
+        final BestResponseGraphImage image = new BestResponseGraphImage(matrix, path, pathLength);
+        graphTask = new SwingWorker<BestResponseGraphImage, Void>() {
+            @Override
+            protected BestResponseGraphImage doInBackground() {
+                return image.render() ? image : null;
+            }
+
+            @Override
+            protected void done() {
+                if (isCancelled() || graphTask != this) {
+                    return;
+                }
+                graphTask = null;
+                try {
+                    BestResponseGraphImage drawn = get();
+                    if (drawn == null) return;
+                    // keep the view where it was if only the path changed
+                    boolean sameSize = graphImage != null && graphImage.getNumRows() == drawn.getNumRows()
+                            && graphImage.getNumCols() == drawn.getNumCols();
+                    graphImage = drawn;
+                    if (!sameSize) {
+                        fitGraph();
+                    }
+                    graphImageLabel.setText(null);
+                    refreshGraphView();
+                } catch (InterruptedException | ExecutionException e) {
+                    graphImageLabel.setText("Could not draw the graph: " + e.getMessage());
+                }
+            }
+        };
+        graphTask.execute();
+    }
+
+    /** Zooms so the whole graph fits the label, centered. */
+    private void fitGraph() {
+        int width = Math.max(1, graphImageLabel.getWidth());
+        int height = Math.max(1, graphImageLabel.getHeight());
+        graphScale = Math.min((double) width / graphImage.getNumCols(), (double) height / graphImage.getNumRows());
+        graphX = (graphImage.getNumCols() - width / graphScale) / 2;
+        graphY = (graphImage.getNumRows() - height / graphScale) / 2;
+    }
+
+    /** Copies the part of the graph in view into the label's image. */
+    private void refreshGraphView() {
+        int width = graphImageLabel.getWidth();
+        int height = graphImageLabel.getHeight();
+        if (graphImage == null || width <= 0 || height <= 0) {
+            return;
+        }
+        if (graphView == null || graphView.getWidth() != width || graphView.getHeight() != height) {
+            graphView = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            graphImageLabel.setIcon(new ImageIcon(graphView));
+        }
+        Graphics2D g = graphView.createGraphics();
+        graphImage.paint(g, width, height, graphScale, graphX, graphY);
+        g.dispose();
+        graphImageLabel.repaint();
+    }
+
     /** Welcome message for player. */
     private void showWelcomeMessage() {
         outputArea.append("Welcome to the Payoff Matrices Explorer!\n");
         outputArea.append("First, let's create your payoff matrix for Player 1 (P1) and Player 2 (P2).\n");
-        outputArea.append("Type the number of moves you want each player to have (2 or 3):\n");
+        showSetupPrompt();
+    }
+
+    /** Asks how to create the matrix. */
+    private void showSetupPrompt() {
+        outputArea.append("Type the number of moves you want each player to have (2 or 3), 'load' to read " +
+                "a matrix from a CSV or game corpus file, or 'paste' to paste one from the clipboard:\n");
     }
 
     /** Gets user input for setting up matrix then uses enum current state to determine how
@@ -112,6 +337,14 @@ public class MainGUI {
 
         if (matrix == null) {
             // when first setting up
+            if (input.equalsIgnoreCase("load")) {
+                loadMatrix();
+                return;
+            }
+            if (input.equalsIgnoreCase("paste")) {
+                pasteMatrix();
+                return;
+            }
             try {
                 numMoves = Integer.parseInt(input);
                 if (numMoves != 2 && numMoves != 3) {
@@ -165,8 +398,14 @@ public class MainGUI {
             case "5":
                 startDeviationAnalysis();
                 break;
+            case "6":
+                loadMatrix();
+                break;
+            case "7":
+                pasteMatrix();
+                break;
             default:
-                outputArea.append("Invalid command. Please enter a number between 1-5 or 'exit'.\n");
+                outputArea.append("Invalid command. Please enter a number between 1-7 or 'exit'.\n");
         }
     }
 
@@ -180,7 +419,7 @@ public class MainGUI {
             }
             currentPlayer = player;
             outputArea.append("Enter the move you want to know Player " + player +
-                    "'s best response to (1-" + numMoves + "):\n");
+                    "'s best response to (1-" + otherPlayerMoves(player) + "):\n");
             currentState = InputState.WAITING_FOR_MOVE;
         } catch (NumberFormatException e) {
             outputArea.append("Please enter a valid number (1 or 2).\n");
@@ -191,8 +430,8 @@ public class MainGUI {
     private void handleMoveInput(String input) {
         try {
             int move = Integer.parseInt(input);
-            if (move < 1 || move > numMoves) {
-                outputArea.append("Please enter a move between 1 and " + numMoves + ".\n");
+            if (move < 1 || move > otherPlayerMoves(currentPlayer)) {
+                outputArea.append("Please enter a move between 1 and " + otherPlayerMoves(currentPlayer) + ".\n");
                 return;
             }
 
@@ -250,230 +489,382 @@ public class MainGUI {
 
     /** Updates payoff matrix display. */
     private void updateMatrixDisplay() {
-        matrixPanel.removeAll();
-        matrixPanel.setLayout(new GridBagLayout());
-        GridBagConstraints gbc = new GridBagConstraints();
-        gbc.fill = GridBagConstraints.BOTH;
-        gbc.weightx = 1.0;
-        gbc.weighty = 1.0;
-        gbc.insets = new Insets(2, 2, 2, 2);
-
-        // b-b-b border !
-        Border cellBorder = BorderFactory.createLineBorder(Color.BLACK, 1);
-
-        // player label
-        gbc.gridx = 0;
-        gbc.gridy = 0;
-        JPanel cornerPanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 0, 0));
-        cornerPanel.setBorder(cellBorder);
-        cornerPanel.setOpaque(true);
-        cornerPanel.setBackground(new Color(240, 240, 240));
-
-        JLabel p1Label = new JLabel("P1");
-        p1Label.setForeground(Color.BLUE);
-        p1Label.setFont(p1Label.getFont().deriveFont(Font.BOLD));
-
-        JLabel slashLabel = new JLabel("\\");
-        slashLabel.setForeground(Color.BLACK);
-
-        JLabel p2Label = new JLabel("P2");
-        p2Label.setForeground(Color.RED);
-        p2Label.setFont(p2Label.getFont().deriveFont(Font.BOLD));
-
-        cornerPanel.add(p1Label);
-        cornerPanel.add(slashLabel);
-        cornerPanel.add(p2Label);
-        matrixPanel.add(cornerPanel, gbc);
-
-        // headers
-        for (int j = 0; j < numMoves; j++) {
-            gbc.gridx = j + 1;
-            gbc.gridy = 0;
-            JLabel colHeader = new JLabel("Move " + (j + 1), SwingConstants.CENTER);
-            colHeader.setBorder(cellBorder);
-            colHeader.setOpaque(true);
-            colHeader.setBackground(new Color(240, 240, 240));
-            matrixPanel.add(colHeader, gbc);
-        }
-
-        // p1 headers and payoffs
-        for (int i = 0; i < numMoves; i++) {
-            // Row header
-            gbc.gridx = 0;
-            gbc.gridy = i + 1;
-            JLabel rowHeader = new JLabel("Move " + (i + 1), SwingConstants.CENTER);
-            rowHeader.setBorder(cellBorder);
-            rowHeader.setOpaque(true);
-            rowHeader.setBackground(new Color(240, 240, 240));
-            matrixPanel.add(rowHeader, gbc);
-
-            // payoffs
-            for (int j = 0; j < numMoves; j++) {
-                gbc.gridx = j + 1;
-                gbc.gridy = i + 1;
-
-                JPanel cellPanel = new JPanel(new GridLayout(2, 1));
-                cellPanel.setBorder(cellBorder);
-                cellPanel.setBackground(Color.WHITE);
-
-                JLabel p1temp = new JLabel(" " + p1Payoffs[i][j], SwingConstants.CENTER);
-                p1temp.setFont(p1Label.getFont().deriveFont(Font.BOLD));
-                p1temp.setForeground(Color.BLUE);
-
-                JLabel p2temp = new JLabel(" " + p2Payoffs[i][j], SwingConstants.CENTER);
-                p2temp.setFont(p2temp.getFont().deriveFont(Font.BOLD));
-                p2temp.setForeground(Color.RED);
-
-                cellPanel.add(p1temp);
-                cellPanel.add(p2temp);
-                matrixPanel.add(cellPanel, gbc);
+        tableModel.setGame(matrix);
+        renderGraph(null, 0);
+        final int rows = matrix.getNumRows();
+        rowHeader.setModel(new AbstractListModel<String>() {
+            public int getSize() {
+                return rows;
             }
-        }
 
+            public String getElementAt(int index) {
+                return "Move " + (index + 1);
+            }
+        });
         matrixPanel.revalidate();
         matrixPanel.repaint();
     }
 
+    /** Shows the menu, or asks how to create the matrix again if there is none yet. */
+    private void showNextPrompt() {
+        if (matrix == null) {
+            showSetupPrompt();
+        } else {
+            showOptions();
+        }
+    }
+
     /** Outputs options and toggles state to be main menu. */
     private void showOptions() {
         outputArea.append("\n\nWhat would you like to do?\n");
         outputArea.append("1. Find the pure strategy Nash Equilibria, if they exist.\n");
         outputArea.append("2. If you have a 2x2 matrix, find the mixed strategy Nash Equilibrium.\n");
         outputArea.append("3. Find a player's best response to the other player's specific move.\n");
-        outputArea.append("4. Toggle between 2x2 and 3x3 matrix size.\n");
+        if (canToggleSize()) {
+            outputArea.append("4. Toggle between 2x2 and 3x3 matrix size.\n");
+        } else {
+            outputArea.append("4. (Only for 2x2 and 3x3 matrices) Toggle between 2x2 and 3x3 matrix size.\n");
+        }
         outputArea.append("5. Analyze equilibrium transition paths.\n");
+        outputArea.append("6. Load a matrix from a CSV or game corpus file.\n");
+        outputArea.append("7. Paste a matrix copied from a spreadsheet or text file.\n");
         outputArea.append("Type 'exit' to quit.\n");
         currentState = InputState.MAIN_MENU;
     }
 
+    /**
+     * An analysis run off the Swing thread so the window keeps responding.
+     * While it runs the progress bar and Cancel button are shown and input
+     * is turned off; finished() gets the result back on the Swing thread.
+     */
+    private abstract class GuiTask<T> extends SwingWorker<T, Void> {
+        protected abstract void finished(T result);
+
+        /** Reports that done out of total steps are finished. */
+        protected void step(long done, long total) {
+            setProgress((int) (done * 100 / total));
+        }
+
+        @Override
+        protected void done() {
+            runningTask = null;
+            taskPanel.setVisible(false);
+            setInputEnabled(true);
+            if (isCancelled()) {
+                outputArea.append("\nCancelled.\n");
+                showNextPrompt();
+                return;
+            }
+            try {
+                finished(get());
+            } catch (InterruptedException | ExecutionException e) {
+                Throwable cause = e.getCause() == null ? e : e.getCause();
+                outputArea.append("\nCould not finish: " +
+                        (cause.getMessage() == null ? cause.toString() : cause.getMessage()) + "\n");
+                showNextPrompt();
+            }
+        }
+    }
+
+    /** Starts task in the background, showing description on the progress bar. */
+    private void runTask(final String description, final GuiTask<?> task) {
+        runningTask = task;
+        setInputEnabled(false);
+        progressBar.setIndeterminate(true);
+        progressBar.setValue(0);
+        progressBar.setString(description);
+        taskPanel.setVisible(true);
+        task.addPropertyChangeListener(new PropertyChangeListener() {
+            public void propertyChange(PropertyChangeEvent e) {
+                if ("progress".equals(e.getPropertyName()) && !task.isDone()) {
+                    progressBar.setIndeterminate(false);
+                    progressBar.setValue((Integer) e.getNewValue());
+                    progressBar.setString(description + " " + e.getNewValue() + "%");
+                }
+            }
+        });
+        task.execute();
+    }
+
+    private void setInputEnabled(boolean enabled) {
+        inputField.setEnabled(enabled);
+        submitButton.setEnabled(enabled);
+        if (enabled) {
+            inputField.requestFocusInWindow();
+        }
+    }
+
+    /** Searches for every pure equilibrium a block of rows at a time and returns their cell codes. */
+    private class PureEquilibriumTask extends GuiTask<int[]> {
+        @Override
+        protected int[] doInBackground() {
+            int rows = matrix.getNumRows();
+            int[] cells = new int[rows * matrix.getNumCols()];
+            int count = 0;
+            for (int r = 0; r < rows && !isCancelled(); r += ROWS_PER_STEP) {
+                count = matrix.findPureNashEquilibria(cells, count, r, Math.min(rows, r + ROWS_PER_STEP));
+                step(r, rows);
+            }
+            return Arrays.copyOf(cells, count);
+        }
+
+        @Override
+        protected void finished(int[] cells) {
+        }
+    }
+
+    /** Writes up to MAX_LISTED_EQUILIBRIA of the given cells into one block of text, numbered if asked. */
+    private String listEquilibria(int[] cells, boolean numbered) {
+        int cols = matrix.getNumCols();
+        StringBuilder sb = new StringBuilder();
+        int listed = Math.min(cells.length, MAX_LISTED_EQUILIBRIA);
+        for (int i = 0; i < listed; i++) {
+            if (numbered) {
+                sb.append(i + 1).append(". ");
+            }
+            sb.append("(Move ").append(cells[i] / cols + 1).append(" for P1, Move ")
+                    .append(cells[i] % cols + 1).append(" for P2)\n");
+        }
+        if (listed < cells.length) {
+            sb.append("... and ").append(cells.length - listed).append(" more\n");
+        }
+        return sb.toString();
+    }
+
     /** Finds and displays nash equilibrium using PayoffMatrix class. */
     private void findPureNashEquilibrium() {
-        ArrayList<ArrayList<Integer>> pureEquilib = matrix.findPureNashEquilibrium();
-        if (pureEquilib == null) {
-            outputArea.append("\nNo pure strategy Nash Equilibrium exists! Try changing the payoff values.\n");
-        } else {
-            outputArea.append("\nThe following are pure strategy Nash Equilibrium:\n");
-            for (ArrayList<Integer> square : pureEquilib) {
-                int move1 = square.get(0);
-                int move2 = square.get(1);
-                outputArea.append("(Move " + move1 + " for P1, Move " + move2 + " for P2)\n");
+        runTask("Finding pure equilibria", new PureEquilibriumTask() {
+            @Override
+            protected void finished(int[] cells) {
+                if (cells.length == 0) {
+                    outputArea.append("\nNo pure strategy Nash Equilibrium exists! Try changing the payoff values.\n");
+                } else {
+                    outputArea.append("\nThe following are pure strategy Nash Equilibrium:\n");
+                    outputArea.append(listEquilibria(cells, false));
+                }
+                showOptions();
             }
-        }
-        showOptions();
+        });
     }
 
     /** Finds mixed strat equilibrium if it exists. */
     private void findMixedNashEquilibrium() {
-        ArrayList<Double> mixedPQ = matrix.findMixedNashEquilibrium();
-        if (mixedPQ == null) {
-            outputArea.append("Matrix is either not 2x2, or no valid values for p and q exist!\n");
-        } else {
-            outputArea.append("For a mixed Nash Equilibrium:\n");
-            double p = mixedPQ.get(0);
-            double q = mixedPQ.get(1);
-            outputArea.append("p = " + p + "; q = " + q + "\n");
+        if (matrix.getNumRows() == 2 && matrix.getNumCols() == 2) {
+            ArrayList<Double> mixedPQ = matrix.findMixedNashEquilibrium();
+            if (mixedPQ == null) {
+                outputArea.append("Matrix is either not 2x2, or no valid values for p and q exist!\n");
+            } else {
+                outputArea.append("For a mixed Nash Equilibrium:\n");
+                double p = mixedPQ.get(0);
+                double q = mixedPQ.get(1);
+                outputArea.append("p = " + p + "; q = " + q + "\n");
+            }
+            // a 2x2 game is small enough to solve on the Swing thread
+            StrategyProfile minimax = matrix.findMinimaxEquilibrium();
+            if (minimax != null) {
+                outputArea.append("This is a constant-sum game, so every equilibrium gives P1 the " +
+                        "same payoff, the value of the game: " + minimax.getP1Payoff() + "\n");
+            }
+            showOptions();
+            return;
+        }
+
+        runTask("Finding mixed equilibria", new GuiTask<List<StrategyProfile>>() {
+            private ReducedGame reduced;
+            private StrategyProfile minimax;
+
+            @Override
+            protected List<StrategyProfile> doInBackground() {
+                reduced = new ReducedGame(matrix);
+                List<StrategyProfile> equilibria = matrix.findAllMixedNashEquilibria(reduced);
+                if (!isCancelled() && matrix.getConstantSum() != null) {
+                    minimax = matrix.findMinimaxEquilibrium();
+                }
+                return equilibria;
+            }
+
+            @Override
+            protected void finished(List<StrategyProfile> equilibria) {
+                PayoffMatrix game = reduced.getGame();
+                if (SupportEnumerationSolver.canEnumerate(game)) {
+                    outputArea.append("The Nash Equilibria of this matrix, given as the probability each " +
+                            "player plays each of their moves, are:\n");
+                } else if (equilibria.isEmpty()) {
+                    outputArea.append("This matrix is too large to list every equilibrium, and the " +
+                            "Lemke-Howson algorithm did not reach one in time.\n");
+                } else {
+                    outputArea.append("This matrix is too large to list every equilibrium (" +
+                            game.getNumRows() + "x" + game.getNumCols() + " after removing dominated " +
+                            "moves), so here is one found with the Lemke-Howson algorithm:\n");
+                }
+                StringBuilder sb = new StringBuilder();
+                for (StrategyProfile profile : equilibria) {
+                    sb.append(profile).append("\n");
+                }
+                outputArea.append(sb.toString());
+                if (minimax != null) {
+                    outputArea.append("This is a constant-sum game, so every equilibrium gives P1 the " +
+                            "same payoff, the value of the game: " + minimax.getP1Payoff() + "\n");
+                }
+                showOptions();
+            }
+        });
+    }
+
+
+    /** Number of moves the given player has; loaded matrices need not be square. */
+    private int playerMoves(int player) {
+        return player == 1 ? matrix.getNumRows() : matrix.getNumCols();
+    }
+
+    /** Number of moves the given player's opponent has. */
+    private int otherPlayerMoves(int player) {
+        return playerMoves(3 - player);
+    }
+
+    /** Asks for a CSV or game corpus file and loads its matrix in the background. */
+    private void loadMatrix() {
+        JFileChooser chooser = new JFileChooser();
+        if (chooser.showOpenDialog(frame) != JFileChooser.APPROVE_OPTION) {
+            showNextPrompt();
+            return;
         }
+        final File file = chooser.getSelectedFile();
+        final long total = Math.max(1, file.length());
+        runTask("Loading " + file.getName(), new GuiTask<PayoffMatrix>() {
+            @Override
+            protected PayoffMatrix doInBackground() throws IOException {
+                return MatrixImporter.readFile(file.toPath(), bytes -> step(bytes, total));
+            }
+
+            @Override
+            protected void finished(PayoffMatrix loaded) {
+                useLoadedMatrix(loaded, file.getName());
+            }
+        });
+    }
+
+    /** Loads the matrix written out in the text on the clipboard in the background. */
+    private void pasteMatrix() {
+        String text;
+        try {
+            text = (String) Toolkit.getDefaultToolkit().getSystemClipboard().getData(DataFlavor.stringFlavor);
+        } catch (UnsupportedFlavorException | IOException | IllegalStateException e) {
+            outputArea.append("The clipboard does not hold any text to paste.\n");
+            showNextPrompt();
+            return;
+        }
+        final byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        runTask("Reading the pasted matrix", new GuiTask<PayoffMatrix>() {
+            @Override
+            protected PayoffMatrix doInBackground() throws IOException {
+                return MatrixImporter.readText(new ByteArrayInputStream(bytes), read -> step(read, bytes.length));
+            }
+
+            @Override
+            protected void finished(PayoffMatrix loaded) {
+                useLoadedMatrix(loaded, "the clipboard");
+            }
+        });
+    }
+
+    private void useLoadedMatrix(PayoffMatrix loaded, String source) {
+        matrix = loaded;
+        numMoves = loaded.getNumRows();
+        outputArea.append("\nLoaded a " + loaded.getNumRows() + "x" + loaded.getNumCols() +
+                " matrix from " + source + ".\n");
+        updateMatrixDisplay();
         showOptions();
     }
 
+    /** Whether option 4 applies: only a 2x2 or 3x3 matrix can be toggled without losing payoffs. */
+    private boolean canToggleSize() {
+        int rows = matrix.getNumRows();
+        return rows == matrix.getNumCols() && (rows == 2 || rows == 3);
+    }
 
     /** Resizes matrix to allow toggle between 2x2 and 3x3. */
     private void resizeMatrix() {
+        if (!canToggleSize()) {
+            // a loaded matrix would lose its payoffs, so leave it alone
+            outputArea.append("This matrix is " + matrix.getNumRows() + "x" + matrix.getNumCols() +
+                    ", and only 2x2 and 3x3 matrices can be toggled. Load or paste a matrix " +
+                    "(options 6 and 7) to change its size.\n");
+            showOptions();
+            return;
+        }
         if (numMoves == 2) {
-            // go from 2 moves to 3
-            int[][] newP1Payoffs = new int[3][3];
-            int[][] newP2Payoffs = new int[3][3];
-
-            // copy 2x2 values
-            for (int i = 0; i < 2; i++) {
-                for (int j = 0; j < 2; j++) {
-                    newP1Payoffs[i][j] = p1Payoffs[i][j];
-                    newP2Payoffs[i][j] = p2Payoffs[i][j];
-                }
-            }
+            // go from 2 moves to 3, keeping the 2x2 values
+            matrix.resize(3, 3);
 
-            // new payoff values for new move
+            // new payoff values for new move; each one only updates the best
+            // responses for its own row and column
             for (int i = 0; i < 3; i++) {
                 for (int j = 0; j < 3; j++) {
                     if (i == 2 || j == 2) {
                         String p1Value = JOptionPane.showInputDialog(frame,
                                 "Enter P1's payoff for Row " + (i+1) + ", Column " + (j+1) + ":");
                         try {
-                            newP1Payoffs[i][j] = Integer.parseInt(p1Value);
+                            matrix.setP1Payoff(i + 1, j + 1, Integer.parseInt(p1Value));
                         } catch (NumberFormatException e) {
                             JOptionPane.showMessageDialog(frame, "Invalid input. Using 0 as default.",
                                     "Error", JOptionPane.ERROR_MESSAGE);
-                            newP1Payoffs[i][j] = 0;
                         }
 
                         String p2Value = JOptionPane.showInputDialog(frame,
                                 "Enter P2's payoff for Row " + (i+1) + ", Column " + (j+1) + ":");
                         try {
-                            newP2Payoffs[i][j] = Integer.parseInt(p2Value);
+                            matrix.setP2Payoff(i + 1, j + 1, Integer.parseInt(p2Value));
                         } catch (NumberFormatException e) {
                             JOptionPane.showMessageDialog(frame, "Invalid input. Using 0 as default.",
                                     "Error", JOptionPane.ERROR_MESSAGE);
-                            newP2Payoffs[i][j] = 0;
                         }
                     }
                 }
                 currentState = InputState.MAIN_MENU;
             }
-
-            p1Payoffs = newP1Payoffs;
-            p2Payoffs = newP2Payoffs;
             numMoves = 3;
         } else {
-            // going from 3 to 2 moves
-            int[][] newP1Payoffs = new int[2][2];
-            int[][] newP2Payoffs = new int[2][2];
-
-            // keep only the mini 2x2
-            for (int i = 0; i < 2; i++) {
-                for (int j = 0; j < 2; j++) {
-                    newP1Payoffs[i][j] = p1Payoffs[i][j];
-                    newP2Payoffs[i][j] = p2Payoffs[i][j];
-                }
-            }
-
-            p1Payoffs = newP1Payoffs;
-            p2Payoffs = newP2Payoffs;
+            // going from 3 to 2 moves, keep only the mini 2x2
+            matrix.resize(2, 2);
             numMoves = 2;
         }
 
-        // new mat object so everything stays updated
-        matrix = new PayoffMatrix(numMoves, p1Payoffs, p2Payoffs);
         updateMatrixDisplay();
         outputArea.append("Matrix has been resized to " + numMoves + "x" + numMoves + "\n");
         showOptions();
     }
 
     private void startDeviationAnalysis() {
-        ArrayList<ArrayList<Integer>> equilibria = matrix.findPureNashEquilibrium();
-        if (equilibria == null) {
-            outputArea.append("No pure Nash equilibria found.\n");
-            return;
-        }
+        runTask("Finding pure equilibria", new PureEquilibriumTask() {
+            @Override
+            protected void finished(int[] cells) {
+                if (cells.length == 0) {
+                    outputArea.append("No pure Nash equilibria found.\n");
+                    showOptions();
+                    return;
+                }
 
-        // Let user choose equilibrium
-        outputArea.append("Select a Nash equilibrium to start from:\n");
-        for (int i = 0; i < equilibria.size(); i++) {
-            ArrayList<Integer> eq = equilibria.get(i);
-            outputArea.append((i+1) + ". (Move " + eq.get(0) + ", Move " + eq.get(1) + ")\n");
-        }
-        currentState = InputState.WAITING_FOR_EQUILIBRIUM;
+                // Let user choose equilibrium
+                currentEquilibria = cells;
+                outputArea.append("Select a Nash equilibrium to start from:\n");
+                outputArea.append(listEquilibria(cells, true));
+                currentState = InputState.WAITING_FOR_EQUILIBRIUM;
+            }
+        });
     }
 
     private void handleEquilibriumInput(String input) {
         try {
             int choice = Integer.parseInt(input);
-            ArrayList<ArrayList<Integer>> equilibria = matrix.findPureNashEquilibrium();
-            if (choice < 1 || choice > equilibria.size()) {
+            if (choice < 1 || choice > currentEquilibria.length) {
                 outputArea.append("Invalid selection.\n");
                 return;
             }
 
-            ArrayList<Integer> selectedEq = equilibria.get(choice - 1);
+            int cell = currentEquilibria[choice - 1];
+            int cols = matrix.getNumCols();
+            ArrayList<Integer> selectedEq = new ArrayList<>(Arrays.asList(cell / cols + 1, cell % cols + 1));
             outputArea.append("Selected: (Move " + selectedEq.get(0) + ", Move " + selectedEq.get(1) + ")\n");
             outputArea.append("Which player deviates? (1 or 2):\n");
             currentState = InputState.WAITING_FOR_DEVIATING_PLAYER;
@@ -491,7 +882,7 @@ public class MainGUI {
                 return;
             }
 
-            outputArea.append("Enter deviation move (1-" + matrix.getNumMoves() + "):\n");
+            outputArea.append("Enter deviation move (1-" + playerMoves(player) + "):\n");
             currentState = InputState.WAITING_FOR_DEVIATION_MOVE;
             currentPlayer = player;
         } catch (NumberFormatException e) {
@@ -502,30 +893,51 @@ public class MainGUI {
     private void handleDeviationMoveInput(String input) {
         try {
             int move = Integer.parseInt(input);
-            if (move < 1 || move > matrix.getNumMoves()) {
+            if (move < 1 || move > playerMoves(currentPlayer)) {
                 outputArea.append("Invalid move.\n");
                 return;
             }
 
-            // mat to simulate path
-            List<String> path = matrix.simulateDeviationPath(
-                    currentEq.get(0), currentEq.get(1),
-                    currentPlayer,
-                    move
-            );
-
-            // show path
-            StringBuilder graphText = new StringBuilder("<html><pre>Deviation Path:\n");
-            for (int i = 0; i < path.size(); i++) {
-                if (i > 0) graphText.append(" → ");
-                graphText.append(path.get(i));
-            }
-            graphText.append("</pre></html>");
+            final int deviatingPlayer = currentPlayer;
+            final int startRow = currentEq.get(0);
+            final int startCol = currentEq.get(1);
+            runTask("Following the deviation", new GuiTask<String>() {
+                private int[] path;
+                private int pathLength;
+                private List<String> pathText;
+
+                @Override
+                protected String doInBackground() {
+                    // mat to simulate path
+                    path = new int[matrix.getMaxDeviationPathLength()];
+                    pathLength = matrix.simulateDeviationPath(startRow, startCol, deviatingPlayer, move,
+                            path, new long[(matrix.getNumRows() * matrix.getNumCols() + 63) >>> 6]);
+                    pathText = matrix.renderDeviationPath(path, pathLength);
+                    if (isCancelled()) {
+                        return null;
+                    }
+                    // where the deviation ends up if both players keep best responding
+                    BestResponseGraph graph = new BestResponseGraph(matrix);
+                    int basin = graph.getDeviationBasin(startRow, startCol, deviatingPlayer, move);
+                    return graph.describeAttractor(basin);
+                }
 
-            graphImageLabel.setText(graphText.toString());
-            outputArea.append("Deviation path visualized.\n");
-            currentState = InputState.MAIN_MENU;
-            showOptions();
+                @Override
+                protected void finished(String attractor) {
+                    // show path
+                    StringBuilder pathLine = new StringBuilder("Deviation Path: ");
+                    for (int i = 0; i < pathText.size(); i++) {
+                        if (i > 0) pathLine.append(" → ");
+                        pathLine.append(pathText.get(i));
+                    }
+                    outputArea.append(pathLine.append("\n").toString());
+                    renderGraph(path, pathLength);
+                    outputArea.append("Deviation path visualized.\n");
+                    outputArea.append("If both players keep switching to their best response, play settles into the "
+                            + attractor + ".\n");
+                    showOptions();
+                }
+            });
         } catch (NumberFormatException e) {
             outputArea.append("Please enter a valid move.\n");
         }
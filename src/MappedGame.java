@@ -0,0 +1,56 @@
+import java.nio.IntBuffer;
+
+/**
+ * A game read straight out of a memory-mapped corpus file. Payoffs are
+ * read from the mapping on demand and never copied onto the heap. A
+ * GameCorpusReader reuses one MappedGame for every game it visits, so a
+ * view is only valid until the reader moves on; use toPayoffMatrix to keep
+ * a copy.
+ */
+public class MappedGame implements BimatrixGame {
+    private IntBuffer data;
+    private int numRows;
+    private int numCols;
+    // offsets (in ints) of each player's row-major payoffs within data
+    private int p1Offset;
+    private int p2Offset;
+
+    /** Points this view at the game whose dimensions start at the given int offset. */
+    void reset(IntBuffer data, int offset) {
+        this.data = data;
+        this.numRows = data.get(offset);
+        this.numCols = data.get(offset + 1);
+        this.p1Offset = offset + 2;
+        this.p2Offset = p1Offset + numRows * numCols;
+    }
+
+    @Override
+    public int getNumRows() {
+        return numRows;
+    }
+
+    @Override
+    public int getNumCols() {
+        return numCols;
+    }
+
+    @Override
+    public int getP1Payoff(int row, int col) {
+        return data.get(p1Offset + (row - 1) * numCols + col - 1);
+    }
+
+    @Override
+    public int getP2Payoff(int row, int col) {
+        return data.get(p2Offset + (row - 1) * numCols + col - 1);
+    }
+
+    /** Copies this game onto the heap. */
+    public PayoffMatrix toPayoffMatrix() {
+        int cells = numRows * numCols;
+        int[] p1Payoffs = new int[cells];
+        int[] p2Payoffs = new int[cells];
+        data.get(p1Offset, p1Payoffs);
+        data.get(p2Offset, p2Payoffs);
+        return new PayoffMatrix(numRows, numCols, p1Payoffs, p2Payoffs);
+    }
+}
@@ -0,0 +1,262 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Reads a single game from a CSV file, pasted text or a binary game corpus,
+ * for games too large to type in one payoff at a time.
+ *
+ * Text has one line per row of P1's payoffs, then a blank line, then one
+ * line per row of P2's payoffs. Numbers can be separated by commas,
+ * semicolons, tabs or spaces, so CSV files and cells copied out of a
+ * spreadsheet both work. Without the second block, each line can instead
+ * give both players' payoffs square by square, P1's then P2's, which is
+ * what copying cells out of the GUI's matrix table gives. Lines starting
+ * with '#' are comments.
+ *
+ * Text is parsed straight from the bytes into the int[] payoff arrays a
+ * buffer at a time, so the input is never held as strings, and a binary
+ * corpus is copied out of its memory mapping in bulk. Reading checks for
+ * interruption between buffers, so it can be cancelled.
+ */
+public class MatrixImporter {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final InputStream in;
+    private final LongConsumer progress;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int pos;
+    private int limit;
+    private long bytesRead;
+    private int line = 1;
+    // payoffs of the block being read
+    private int[] values = new int[BUFFER_SIZE];
+    private int size;
+
+    private MatrixImporter(InputStream in, LongConsumer progress) {
+        this.in = in;
+        this.progress = progress;
+    }
+
+    /**
+     * Reads the file as a binary game corpus if it starts with the corpus
+     * magic number (taking its first game), and as text otherwise.
+     * progress, if not null, is told how many bytes of text have been read
+     * after every buffer.
+     */
+    public static PayoffMatrix readFile(Path file, LongConsumer progress) throws IOException {
+        byte[] start = new byte[4];
+        int length;
+        try (InputStream in = Files.newInputStream(file)) {
+            length = in.readNBytes(start, 0, start.length);
+        }
+        if (length == start.length
+                && ByteBuffer.wrap(start).order(ByteOrder.LITTLE_ENDIAN).getInt() == GameCorpusReader.MAGIC) {
+            return readCorpus(file);
+        }
+        try (InputStream in = Files.newInputStream(file)) {
+            return readText(in, progress);
+        }
+    }
+
+    /** Reads a game written as text (see above); progress may be null. */
+    public static PayoffMatrix readText(InputStream in, LongConsumer progress) throws IOException {
+        return new MatrixImporter(in, progress).parse();
+    }
+
+    /** Reads the first game of a binary game corpus. */
+    public static PayoffMatrix readCorpus(Path file) throws IOException {
+        try (GameCorpusReader reader = new GameCorpusReader(file)) {
+            if (!reader.next()) {
+                throw new IOException("The game corpus has no games");
+            }
+            return reader.current().toPayoffMatrix();
+        }
+    }
+
+    private PayoffMatrix parse() throws IOException {
+        skipByteOrderMark();
+        int[] firstShape = new int[2];
+        int[] first = readBlock(firstShape);
+        if (first == null) {
+            throw new IOException("No payoffs found");
+        }
+        int rows = firstShape[0];
+        int width = firstShape[1];
+        int[] secondShape = new int[2];
+        int[] second = readBlock(secondShape);
+
+        if (second == null) {
+            // no second block, so every line gives a pair of payoffs per square
+            if (width % 2 != 0) {
+                throw new IOException("Expected P2's payoffs after a blank line, or two payoffs for every square");
+            }
+            int cols = width / 2;
+            int[] p1Payoffs = new int[rows * cols];
+            int[] p2Payoffs = new int[rows * cols];
+            for (int i = 0; i < p1Payoffs.length; i++) {
+                p1Payoffs[i] = first[2 * i];
+                p2Payoffs[i] = first[2 * i + 1];
+            }
+            return new PayoffMatrix(rows, cols, p1Payoffs, p2Payoffs);
+        }
+        if (secondShape[0] != rows || secondShape[1] != width) {
+            throw new IOException("P1's payoffs are " + rows + "x" + width + " but P2's are "
+                    + secondShape[0] + "x" + secondShape[1]);
+        }
+        int extraLine = line;
+        if (readBlock(new int[2]) != null) {
+            throw new IOException("line " + extraLine + ": unexpected payoffs after P2's");
+        }
+        return new PayoffMatrix(rows, width, first, second);
+    }
+
+    /** Skips the UTF-8 byte order mark some spreadsheets start CSV files with. */
+    private void skipByteOrderMark() throws IOException {
+        while (limit < 3 && fill(limit)) {
+            // keep reading until there are 3 bytes to look at or the input ends
+        }
+        if (limit >= 3 && (buffer[0] & 0xFF) == 0xEF && (buffer[1] & 0xFF) == 0xBB && (buffer[2] & 0xFF) == 0xBF) {
+            pos = 3;
+        }
+    }
+
+    /**
+     * Reads lines up to the next blank line (or the end of the input),
+     * skipping blank lines before the first one, and returns their payoffs
+     * in one array, with the number of lines and payoffs per line in shape.
+     * Returns null if the input ends before any payoffs.
+     */
+    private int[] readBlock(int[] shape) throws IOException {
+        size = 0;
+        int rows = 0;
+        int width = 0;
+        while (true) {
+            int lineNumber = line;
+            int count = readLine();
+            if (count < 0 || (count == 0 && rows > 0)) {
+                break;
+            }
+            if (count == 0) {
+                continue;
+            }
+            if (rows == 0) {
+                width = count;
+            } else if (count != width) {
+                throw new IOException("line " + lineNumber + ": expected " + width + " payoffs but found " + count);
+            }
+            rows++;
+        }
+        if (rows == 0) {
+            return null;
+        }
+        shape[0] = rows;
+        shape[1] = width;
+        int[] block = size == values.length ? values : Arrays.copyOf(values, size);
+        // the next block is most likely the same size
+        values = new int[Math.max(BUFFER_SIZE, size)];
+        return block;
+    }
+
+    /**
+     * Reads one line into values and returns how many payoffs it had (0 for
+     * a blank line), or -1 at the end of the input. Comment lines are
+     * skipped.
+     */
+    private int readLine() throws IOException {
+        int b = read();
+        while (b == '#') {
+            while (b >= 0 && b != '\n') {
+                b = read();
+            }
+            if (b < 0) {
+                return -1;
+            }
+            line++;
+            b = read();
+        }
+        if (b < 0) {
+            return -1;
+        }
+        int count = 0;
+        while (b >= 0 && b != '\n') {
+            if (isSeparator(b)) {
+                b = read();
+            } else {
+                b = readNumber(b);
+                count++;
+            }
+        }
+        line++;
+        return count;
+    }
+
+    /** Reads a number starting with the byte b into values and returns the byte after it. */
+    private int readNumber(int b) throws IOException {
+        boolean negative = b == '-';
+        if (b == '-' || b == '+') {
+            b = read();
+        }
+        if (b < '0' || b > '9') {
+            throw new IOException("line " + line + ": invalid payoff");
+        }
+        long value = 0;
+        while (b >= '0' && b <= '9') {
+            value = value * 10 + (b - '0');
+            if (value > Integer.MAX_VALUE + 1L) {
+                throw new IOException("line " + line + ": payoff out of range");
+            }
+            b = read();
+        }
+        if (b >= 0 && b != '\n' && !isSeparator(b)) {
+            throw new IOException("line " + line + ": invalid payoff");
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) {
+            throw new IOException("line " + line + ": payoff out of range");
+        }
+        if (size == values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[size++] = (int) value;
+        return b;
+    }
+
+    private static boolean isSeparator(int b) {
+        return b == ',' || b == ';' || b == '\t' || b == ' ' || b == '\r' || b == '"';
+    }
+
+    /** Next byte of the input, or -1 at its end. */
+    private int read() throws IOException {
+        if (pos == limit && !fill(0)) {
+            return -1;
+        }
+        return buffer[pos++] & 0xFF;
+    }
+
+    /** Reads more input into the buffer from offset on, returning false at the end of the input. */
+    private boolean fill(int offset) throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Import cancelled");
+        }
+        int n = in.read(buffer, offset, BUFFER_SIZE - offset);
+        if (n <= 0) {
+            return false;
+        }
+        if (offset == 0) {
+            pos = 0;
+        }
+        limit = offset + n;
+        bytesRead += n;
+        if (progress != null) {
+            progress.accept(bytesRead);
+        }
+        return true;
+    }
+}
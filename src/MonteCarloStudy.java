@@ -0,0 +1,213 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Estimates how equilibria are distributed over random games: how often a
+ * random numRows x numCols game has 0, 1, 2, ... pure strategy Nash
+ * Equilibria, and for 2x2 games how often the mixed strategy formula from
+ * findMixedNashEquilibrium gives valid probabilities.
+ *
+ * Payoffs are drawn uniformly from [minPayoff, maxPayoff]. The games are
+ * split into fixed chunks, each with its own SplittableRandom seeded from the
+ * study's seed, so a run gives the same counts for the same seed no matter
+ * how many threads run it. Every worker reuses one PayoffMatrix and refills
+ * it in place, so no memory is allocated per game, and the workers' counts
+ * are merged up the fork-join tree.
+ */
+public class MonteCarloStudy {
+    // games per chunk; each chunk draws from its own generator
+    private static final int CHUNK_SIZE = 1 << 16;
+    // chunks a task handles itself before splitting stops
+    private static final int LEAF_CHUNKS = 4;
+
+    private final int numRows;
+    private final int numCols;
+    private final int minPayoff;
+    private final int maxPayoff;
+
+    /** Creates a study of random numRows x numCols games with payoffs in [minPayoff, maxPayoff]. */
+    public MonteCarloStudy(int numRows, int numCols, int minPayoff, int maxPayoff) {
+        if (numRows <= 0 || numCols <= 0) {
+            throw new IllegalArgumentException("Matrix must have at least one row and column");
+        }
+        if (minPayoff > maxPayoff) {
+            throw new IllegalArgumentException("minPayoff must not be larger than maxPayoff");
+        }
+        this.numRows = numRows;
+        this.numCols = numCols;
+        this.minPayoff = minPayoff;
+        this.maxPayoff = maxPayoff;
+    }
+
+    /** Runs the study on the common fork-join pool. */
+    public Result run(long numGames, long seed) {
+        return run(numGames, seed, ForkJoinPool.commonPool());
+    }
+
+    /** Solves numGames random games on the given pool and returns the merged counts. */
+    public Result run(long numGames, long seed, ForkJoinPool pool) {
+        long numChunks = (numGames + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        return pool.invoke(new StudyTask(numGames, seed, 0, numChunks));
+    }
+
+    /** Counts gathered by a study. */
+    public static class Result {
+        private long games;
+        // pureCounts[k] is the number of games with exactly k pure equilibria
+        private final long[] pureCounts;
+        private long mixedSolvable;
+        private long mixedInRange;
+
+        Result(int maxEquilibria) {
+            pureCounts = new long[maxEquilibria + 1];
+        }
+
+        void merge(Result other) {
+            games += other.games;
+            for (int i = 0; i < pureCounts.length; i++) {
+                pureCounts[i] += other.pureCounts[i];
+            }
+            mixedSolvable += other.mixedSolvable;
+            mixedInRange += other.mixedInRange;
+        }
+
+        /** Number of games solved. */
+        public long getGames() {
+            return games;
+        }
+
+        /** Number of games with exactly count pure strategy Nash Equilibria. */
+        public long getPureCount(int count) {
+            return count < pureCounts.length ? pureCounts[count] : 0;
+        }
+
+        /** Number of 2x2 games where the mixed strategy equations could be solved for p and q. */
+        public long getMixedSolvable() {
+            return mixedSolvable;
+        }
+
+        /** Number of 2x2 games where p and q both came out in [0, 1]. */
+        public long getMixedInRange() {
+            return mixedInRange;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("Games: ").append(games).append('\n');
+            for (int k = 0; k < pureCounts.length; k++) {
+                if (pureCounts[k] == 0) continue;
+                sb.append(k).append(" pure equilibria: ").append(pureCounts[k])
+                        .append(String.format(" (%.4f%%)", 100.0 * pureCounts[k] / games)).append('\n');
+            }
+            if (mixedSolvable > 0) {
+                sb.append("Mixed equations solvable: ").append(mixedSolvable)
+                        .append(String.format(" (%.4f%%)", 100.0 * mixedSolvable / games)).append('\n');
+                sb.append("p and q in [0, 1]: ").append(mixedInRange)
+                        .append(String.format(" (%.4f%%)", 100.0 * mixedInRange / games)).append('\n');
+            }
+            return sb.toString();
+        }
+    }
+
+    /** Solves the games in chunks [firstChunk, endChunk). */
+    private class StudyTask extends RecursiveTask<Result> {
+        private static final long serialVersionUID = 1L;
+
+        private final long numGames;
+        private final long seed;
+        private final long firstChunk;
+        private final long endChunk;
+
+        StudyTask(long numGames, long seed, long firstChunk, long endChunk) {
+            this.numGames = numGames;
+            this.seed = seed;
+            this.firstChunk = firstChunk;
+            this.endChunk = endChunk;
+        }
+
+        @Override
+        protected Result compute() {
+            if (endChunk - firstChunk <= LEAF_CHUNKS) {
+                return computeDirectly();
+            }
+            long mid = (firstChunk + endChunk) >>> 1;
+            StudyTask left = new StudyTask(numGames, seed, firstChunk, mid);
+            StudyTask right = new StudyTask(numGames, seed, mid, endChunk);
+            left.fork();
+            Result result = right.compute();
+            result.merge(left.join());
+            return result;
+        }
+
+        private Result computeDirectly() {
+            int cells = numRows * numCols;
+            int[] p1Payoffs = new int[cells];
+            int[] p2Payoffs = new int[cells];
+            // one matrix per worker, refilled in place for every game
+            PayoffMatrix matrix = new PayoffMatrix(numRows, numCols, p1Payoffs, p2Payoffs);
+            int[] equilibria = new int[cells];
+            double[] pq = new double[2];
+            boolean twoByTwo = numRows == 2 && numCols == 2;
+            // up to 2^32, so it needs a long
+            long bound = (long) maxPayoff - minPayoff + 1;
+            Result result = new Result(cells);
+
+            for (long chunk = firstChunk; chunk < endChunk; chunk++) {
+                SplittableRandom random = new SplittableRandom(chunkSeed(seed, chunk));
+                long end = Math.min(numGames, (chunk + 1) * CHUNK_SIZE);
+                for (long game = chunk * CHUNK_SIZE; game < end; game++) {
+                    for (int i = 0; i < cells; i++) {
+                        p1Payoffs[i] = draw(random, bound);
+                        p2Payoffs[i] = draw(random, bound);
+                    }
+                    matrix.refreshBestResponses();
+                    result.pureCounts[matrix.findPureNashEquilibria(equilibria)]++;
+                    if (twoByTwo && matrix.findMixedNashEquilibrium(pq)) {
+                        result.mixedSolvable++;
+                        if (pq[0] >= 0 && pq[0] <= 1 && pq[1] >= 0 && pq[1] <= 1) {
+                            result.mixedInRange++;
+                        }
+                    }
+                    result.games++;
+                }
+            }
+            return result;
+        }
+
+        private int draw(SplittableRandom random, long bound) {
+            return (int) (minPayoff + random.nextLong(bound));
+        }
+    }
+
+    /** Mixes the study seed and chunk number into the chunk's own seed. */
+    private static long chunkSeed(long seed, long chunk) {
+        long z = seed + (chunk + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Usage: java MonteCarloStudy games [rows cols min max seed]. Defaults to
+     * 2x2 games with payoffs from -10 to 10 and seed 1.
+     */
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.err.println("Usage: java MonteCarloStudy games [rows cols min max seed]");
+            return;
+        }
+        long games = Long.parseLong(args[0]);
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        int cols = args.length > 2 ? Integer.parseInt(args[2]) : 2;
+        int min = args.length > 3 ? Integer.parseInt(args[3]) : -10;
+        int max = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : 1;
+
+        long start = System.nanoTime();
+        Result result = new MonteCarloStudy(rows, cols, min, max).run(games, seed);
+        System.out.print(result);
+        System.out.printf("Took %.2f s%n", (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,314 @@
+import java.util.ArrayList;
+
+/**
+ * A normal-form game with any number of players, each with their own number
+ * of strategies. Players and strategies are numbered from 1.
+ *
+ * A pure strategy profile (one strategy per player) is stored as a single
+ * int index: player i's strategy (from 0) times stride(i), summed over the
+ * players, where the last player's stride is 1 and each earlier player's
+ * is the product of the strategy counts after it. For two players this is
+ * the same row-major order as PayoffMatrix. All payoffs live in one int[]
+ * with each player's payoffs for every profile in a contiguous block, so
+ * there is no object per profile: 6 players with 8 strategies each take
+ * 6 * 8^6 ints, 6 MB.
+ *
+ * For each player a bitmap over the profiles marks where that player's
+ * strategy is a best response to the others'. It is built in one sweep over
+ * the player's block, along the player's axis, and the pure strategy Nash
+ * Equilibria are the profiles set in every player's bitmap, found by
+ * AND-ing the bitmaps a word at a time. Bitmaps are built when first needed
+ * and rebuilt after a payoff changes.
+ */
+public class NPlayerGame {
+    private final int numPlayers;
+    private final int[] numStrategies;
+    private final int[] strides;
+    private final int numProfiles;
+    // payoff of player p (from 0) at profile i is payoffs[p * numProfiles + i]
+    private final int[] payoffs;
+    // bestResponses[p] has bit i set if player p's strategy in profile i is a best response; null until built
+    private final long[][] bestResponses;
+
+    /** Creates a game with every payoff 0; numStrategies[i] is player (i + 1)'s number of strategies. */
+    public NPlayerGame(int[] numStrategies) {
+        this(numStrategies, new int[checkedPayoffCount(numStrategies)]);
+    }
+
+    /**
+     * Creates a game where numStrategies[i] is player (i + 1)'s number of
+     * strategies and payoffs holds each player's payoffs for every profile
+     * in index order, player 1's first (see above). The array is used
+     * directly, not copied, so later changes must go through setPayoff.
+     */
+    public NPlayerGame(int[] numStrategies, int[] payoffs) {
+        int count = checkedPayoffCount(numStrategies);
+        if (payoffs.length != count) {
+            throw new IllegalArgumentException("Payoff array must have " + count + " entries");
+        }
+        numPlayers = numStrategies.length;
+        this.numStrategies = numStrategies.clone();
+        strides = new int[numPlayers];
+        int stride = 1;
+        for (int p = numPlayers - 1; p >= 0; p--) {
+            strides[p] = stride;
+            stride *= numStrategies[p];
+        }
+        numProfiles = stride;
+        this.payoffs = payoffs;
+        bestResponses = new long[numPlayers][];
+    }
+
+    /** Number of payoffs a game with these strategy counts stores, rejecting games too large for one int[]. */
+    private static int checkedPayoffCount(int[] numStrategies) {
+        if (numStrategies.length < 1) {
+            throw new IllegalArgumentException("A game needs at least one player");
+        }
+        long count = numStrategies.length;
+        for (int n : numStrategies) {
+            if (n <= 0) {
+                throw new IllegalArgumentException("Every player needs at least one strategy");
+            }
+            count *= n;
+            if (count > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Game has too many strategy profiles to store");
+            }
+        }
+        return (int) count;
+    }
+
+    /** Copies a two-player game, P1 as player 1 choosing rows and P2 as player 2 choosing columns. */
+    public static NPlayerGame fromBimatrix(BimatrixGame game) {
+        int rows = game.getNumRows();
+        int cols = game.getNumCols();
+        int[] payoffs = new int[2 * rows * cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                payoffs[r * cols + c] = game.getP1Payoff(r + 1, c + 1);
+                payoffs[rows * cols + r * cols + c] = game.getP2Payoff(r + 1, c + 1);
+            }
+        }
+        return new NPlayerGame(new int[]{rows, cols}, payoffs);
+    }
+
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    /** Number of strategies of the given player. */
+    public int getNumStrategies(int player) {
+        return numStrategies[player - 1];
+    }
+
+    /** Number of pure strategy profiles, the product of every player's number of strategies. */
+    public int getNumProfiles() {
+        return numProfiles;
+    }
+
+    /** How much a profile's index changes when the given player's strategy goes up by one. */
+    public int getStride(int player) {
+        return strides[player - 1];
+    }
+
+    /**
+     * Index of the profile where player (i + 1) plays strategies[i].
+     * Returns -1 if a strategy is out of range or the number of strategies
+     * given is not the number of players.
+     */
+    public int profileIndex(int... strategies) {
+        if (strategies.length != numPlayers) {
+            return -1;
+        }
+        int index = 0;
+        for (int p = 0; p < numPlayers; p++) {
+            if (strategies[p] < 1 || strategies[p] > numStrategies[p]) {
+                return -1;
+            }
+            index += (strategies[p] - 1) * strides[p];
+        }
+        return index;
+    }
+
+    /** The strategy the given player plays in the profile with the given index. */
+    public int getStrategy(int profile, int player) {
+        return profile / strides[player - 1] % numStrategies[player - 1] + 1;
+    }
+
+    /** Every player's strategy in the profile with the given index, player 1's first. */
+    public int[] getStrategies(int profile) {
+        int[] strategies = new int[numPlayers];
+        for (int p = 0; p < numPlayers; p++) {
+            strategies[p] = profile / strides[p] % numStrategies[p] + 1;
+        }
+        return strategies;
+    }
+
+    /**
+     * The given player's payoff when player (i + 1) plays strategies[i].
+     * Throws IllegalArgumentException for a player or profile that does
+     * not exist.
+     */
+    public int getPayoff(int player, int... strategies) {
+        int index = profileIndex(strategies);
+        if (player < 1 || player > numPlayers || index < 0) {
+            throw new IllegalArgumentException("No such player or strategy profile");
+        }
+        return payoffs[(player - 1) * numProfiles + index];
+    }
+
+    /** The given player's payoff at the profile with the given index. */
+    public int getPayoffAt(int player, int profile) {
+        return payoffs[(player - 1) * numProfiles + profile];
+    }
+
+    /**
+     * Sets the given player's payoff when player (i + 1) plays
+     * strategies[i]. Only that player's best responses need rebuilding.
+     */
+    public void setPayoff(int player, int[] strategies, int payoff) {
+        int index = profileIndex(strategies);
+        if (player < 1 || player > numPlayers || index < 0) {
+            throw new IllegalArgumentException("No such player or strategy profile");
+        }
+        payoffs[(player - 1) * numProfiles + index] = payoff;
+        bestResponses[player - 1] = null;
+    }
+
+    /**
+     * Returns the bitmap for the given player, building it if a payoff of
+     * theirs changed since it was last built.
+     */
+    private long[] bestResponses(int player) {
+        long[] bits = bestResponses[player - 1];
+        if (bits == null) {
+            bits = buildBestResponses(player - 1);
+            bestResponses[player - 1] = bits;
+        }
+        return bits;
+    }
+
+    /**
+     * Sweeps player p's block of payoffs along p's axis. The profiles
+     * differing only in p's strategy sit stride apart, so each group of
+     * stride * numStrategies[p] profiles holds stride such lines side by
+     * side. The sweep takes the running maximum of all of them at once, a
+     * strategy at a time, and then marks the entries equal to their line's
+     * maximum, so it reads every payoff in order.
+     */
+    private long[] buildBestResponses(int p) {
+        long[] bits = new long[(numProfiles + 63) >>> 6];
+        int stride = strides[p];
+        int n = numStrategies[p];
+        int group = stride * n;
+        int base = p * numProfiles;
+        int[] max = new int[stride];
+        for (int start = 0; start < numProfiles; start += group) {
+            int offset = base + start;
+            System.arraycopy(payoffs, offset, max, 0, stride);
+            for (int k = 1; k < n; k++) {
+                int line = offset + k * stride;
+                for (int j = 0; j < stride; j++) {
+                    max[j] = Math.max(max[j], payoffs[line + j]);
+                }
+            }
+            for (int k = 0; k < n; k++) {
+                int profile = start + k * stride;
+                int line = offset + k * stride;
+                for (int j = 0; j < stride; j++) {
+                    if (payoffs[line + j] == max[j]) {
+                        bits[(profile + j) >>> 6] |= 1L << (profile + j);
+                    }
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Returns whether the given player's strategy in the profile with the
+     * given index is a best response to the other players' strategies.
+     */
+    public boolean isBestResponse(int player, int profile) {
+        return (bestResponses(player)[profile >>> 6] & (1L << profile)) != 0;
+    }
+
+    /**
+     * Returns a copy of the given player's best-response bitmap: bit i
+     * (word i / 64, bit i % 64) is set if their strategy in profile i is a
+     * best response.
+     */
+    public long[] getBestResponseBitmap(int player) {
+        return bestResponses(player).clone();
+    }
+
+    /**
+     * Returns the given player's first best response to the other players
+     * playing their strategies in strategies (the player's own entry is
+     * ignored), or null if the player or a strategy is invalid.
+     */
+    public Integer findBestResponse(int player, int[] strategies) {
+        if (player < 1 || player > numPlayers || strategies.length != numPlayers) {
+            return null;
+        }
+        int[] others = strategies.clone();
+        others[player - 1] = 1;
+        int first = profileIndex(others);
+        if (first < 0) {
+            return null;
+        }
+        long[] bits = bestResponses(player);
+        int stride = strides[player - 1];
+        for (int k = 0; k < numStrategies[player - 1]; k++) {
+            int profile = first + k * stride;
+            if ((bits[profile >>> 6] & (1L << profile)) != 0) {
+                return k + 1;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes the index of every pure strategy Nash Equilibrium, in
+     * increasing order, into profiles (which must hold numProfiles entries
+     * in the worst case) and returns how many there are.
+     */
+    public int findPureNashEquilibria(int[] profiles) {
+        long[][] bitmaps = new long[numPlayers][];
+        for (int p = 0; p < numPlayers; p++) {
+            bitmaps[p] = bestResponses(p + 1);
+        }
+        int count = 0;
+        for (int w = 0; w < bitmaps[0].length; w++) {
+            long word = bitmaps[0][w];
+            for (int p = 1; p < numPlayers && word != 0; p++) {
+                word &= bitmaps[p][w];
+            }
+            while (word != 0) {
+                profiles[count++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns every pure strategy Nash Equilibrium as a list of each
+     * player's strategy, player 1's first, or null if there are none.
+     */
+    public ArrayList<ArrayList<Integer>> findPureNashEquilibrium() {
+        int[] profiles = new int[numProfiles];
+        int count = findPureNashEquilibria(profiles);
+        if (count == 0) {
+            return null;
+        }
+        ArrayList<ArrayList<Integer>> equilibria = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ArrayList<Integer> strategies = new ArrayList<>(numPlayers);
+            for (int strategy : getStrategies(profiles[i])) {
+                strategies.add(strategy);
+            }
+            equilibria.add(strategies);
+        }
+        return equilibria;
+    }
+}
@@ -0,0 +1,335 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Plays a square payoff matrix game along every friendship of a social
+ * network. Each person picks one move and plays it against all of their
+ * friends: in a friendship between u and v with u < v, u is P1 and v is P2.
+ * People then repeatedly switch to the move that gives them the highest total
+ * payoff against their friends' current moves, keeping their move when it is
+ * already one of the best.
+ *
+ * Updates are either synchronous (everyone responds to the previous round at
+ * once) or asynchronous (people respond one group at a time, where nobody in
+ * a group is friends with anyone else in it, so each group sees the moves the
+ * earlier groups just made). Either way the people in a round or group are
+ * updated in parallel on a fork-join pool.
+ *
+ * Reading Move 1 as helping and Move 2 as harming like Main does, a person
+ * who helps has a directed edge to each of their friends. Two helpers who are
+ * friends are then strongly connected, and getComponentStats reports the
+ * strongly connected components of that help graph.
+ */
+public class NetworkGame {
+    // people a task updates itself before it stops splitting
+    private static final int LEAF_SIZE = 1 << 13;
+
+    private final SocialNetwork network;
+    private final int numMoves;
+    // 0-indexed copies of the payoffs: p1Payoffs[i * numMoves + j] when P1 plays i and P2 plays j
+    private final long[] p1Payoffs;
+    private final long[] p2Payoffs;
+    private final ForkJoinPool pool;
+    // current 0-indexed move of each person, and scratch space for synchronous rounds
+    private byte[] moves;
+    private byte[] nextMoves;
+    // groups of people who are not friends with each other, built the first time they are needed
+    private int[] groupStart;
+    private int[] groupMembers;
+
+    /** Creates a game on the common fork-join pool. */
+    public NetworkGame(PayoffMatrix matrix, SocialNetwork network) {
+        this(matrix, network, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a game where everyone starts on Move 1. The matrix must be
+     * square, since every person plays both sides; its payoffs are copied, so
+     * later edits to it do not affect this game.
+     */
+    public NetworkGame(PayoffMatrix matrix, SocialNetwork network, ForkJoinPool pool) {
+        if (matrix.getNumRows() != matrix.getNumCols()) {
+            throw new IllegalArgumentException("Both players need the same moves to play on a network");
+        }
+        if (matrix.getNumRows() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Networked games support at most " + Byte.MAX_VALUE + " moves");
+        }
+        this.network = network;
+        this.pool = pool;
+        numMoves = matrix.getNumRows();
+        p1Payoffs = new long[numMoves * numMoves];
+        p2Payoffs = new long[numMoves * numMoves];
+        for (int i = 0; i < numMoves; i++) {
+            for (int j = 0; j < numMoves; j++) {
+                p1Payoffs[i * numMoves + j] = matrix.getP1Payoff(i + 1, j + 1);
+                p2Payoffs[i * numMoves + j] = matrix.getP2Payoff(i + 1, j + 1);
+            }
+        }
+        moves = new byte[network.getNumPeople()];
+        nextMoves = new byte[network.getNumPeople()];
+    }
+
+    /** Gives every person a move picked uniformly at random. */
+    public void randomizeMoves(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int u = 0; u < moves.length; u++) {
+            moves[u] = (byte) random.nextInt(numMoves);
+        }
+    }
+
+    /** Returns the given person's current move, counting moves from 1. */
+    public int getMove(int person) {
+        return moves[person] + 1;
+    }
+
+    /** Sets the given person's move, counting moves from 1. */
+    public void setMove(int person, int move) {
+        if (move < 1 || move > numMoves) {
+            throw new IllegalArgumentException("Invalid move " + move);
+        }
+        moves[person] = (byte) (move - 1);
+    }
+
+    /**
+     * Runs best-response rounds until nobody changes their move or maxRounds
+     * rounds have passed. Returns the number of rounds played, negated if the
+     * moves were still changing in the last one. Synchronous updates can keep
+     * flipping between two states forever, while asynchronous ones settle in
+     * every game where each friendship gives both friends the same payoff.
+     */
+    public int run(boolean synchronous, int maxRounds) {
+        if (!synchronous && groupStart == null) {
+            groupMembers = new int[network.getNumPeople()];
+            groupStart = network.independentGroups(groupMembers);
+        }
+        for (int round = 1; round <= maxRounds; round++) {
+            long changed;
+            if (synchronous) {
+                changed = pool.invoke(new UpdateTask(null, 0, moves.length, moves, nextMoves));
+                byte[] swap = moves;
+                moves = nextMoves;
+                nextMoves = swap;
+            } else {
+                changed = 0;
+                for (int g = 0; g + 1 < groupStart.length; g++) {
+                    // nobody in a group reads anyone else's move from the same group, so it is safe in place
+                    changed += pool.invoke(new UpdateTask(groupMembers, groupStart[g], groupStart[g + 1],
+                            moves, moves));
+                }
+            }
+            if (changed == 0) {
+                return round;
+            }
+        }
+        return -maxRounds;
+    }
+
+    /** Updates the people (or groupMembers entries) in [from, to) and counts how many changed move. */
+    private class UpdateTask extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] people;
+        private final int from;
+        private final int to;
+        private final byte[] current;
+        private final byte[] next;
+
+        UpdateTask(int[] people, int from, int to, byte[] current, byte[] next) {
+            this.people = people;
+            this.from = from;
+            this.to = to;
+            this.current = current;
+            this.next = next;
+        }
+
+        @Override
+        protected Long compute() {
+            if (to - from > LEAF_SIZE) {
+                int mid = (from + to) >>> 1;
+                UpdateTask left = new UpdateTask(people, from, mid, current, next);
+                left.fork();
+                long changed = new UpdateTask(people, mid, to, current, next).compute();
+                return changed + left.join();
+            }
+
+            int[] offsets = network.offsets();
+            int[] neighbors = network.neighbors();
+            // asP1[j] / asP2[j]: friends playing move j against this person as P2 / as P1
+            int[] asP1 = new int[numMoves];
+            int[] asP2 = new int[numMoves];
+            long changed = 0;
+            for (int i = from; i < to; i++) {
+                int u = people == null ? i : people[i];
+                Arrays.fill(asP1, 0);
+                Arrays.fill(asP2, 0);
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = neighbors[e];
+                    if (u < v) {
+                        asP1[current[v]]++;
+                    } else {
+                        asP2[current[v]]++;
+                    }
+                }
+                int best = current[u];
+                long bestPayoff = totalPayoff(best, asP1, asP2);
+                for (int m = 0; m < numMoves; m++) {
+                    long payoff = totalPayoff(m, asP1, asP2);
+                    if (payoff > bestPayoff) {
+                        best = m;
+                        bestPayoff = payoff;
+                    }
+                }
+                if (best != current[u]) {
+                    changed++;
+                }
+                next[u] = (byte) best;
+            }
+            return changed;
+        }
+
+        private long totalPayoff(int move, int[] asP1, int[] asP2) {
+            long total = 0;
+            for (int j = 0; j < numMoves; j++) {
+                total += asP1[j] * p1Payoffs[move * numMoves + j] + asP2[j] * p2Payoffs[j * numMoves + move];
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Finds the strongly connected components of the help graph, where each
+     * person playing Move 1 has an edge to every friend. Helpers who are
+     * friends reach each other, and anyone else is a component of their own.
+     */
+    public ComponentStats getComponentStats() {
+        int[] offsets = network.offsets();
+        int[] neighbors = network.neighbors();
+        int numPeople = network.getNumPeople();
+        long[] visited = new long[(numPeople + 63) >>> 6];
+        int[] queue = new int[numPeople];
+        ComponentStats stats = new ComponentStats(numPeople);
+
+        for (int start = 0; start < numPeople; start++) {
+            if (moves[start] != 0) {
+                stats.numComponents++;
+                stats.largestComponent = Math.max(stats.largestComponent, 1);
+                continue;
+            }
+            stats.numHelpers++;
+            if ((visited[start >>> 6] & (1L << start)) != 0) continue;
+
+            // breadth-first search over friendships where both friends help
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = start;
+            visited[start >>> 6] |= 1L << start;
+            while (head < tail) {
+                int u = queue[head++];
+                for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                    int v = neighbors[e];
+                    if (moves[v] != 0) continue;
+                    if (u < v) {
+                        stats.mutualHelpFriendships++;
+                    }
+                    if ((visited[v >>> 6] & (1L << v)) == 0) {
+                        visited[v >>> 6] |= 1L << v;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+            stats.numComponents++;
+            if (tail == 1) {
+                stats.isolatedHelpers++;
+            }
+            stats.largestComponent = Math.max(stats.largestComponent, tail);
+        }
+        return stats;
+    }
+
+    /** Connected-component statistics of the help graph. */
+    public static class ComponentStats {
+        private final int numPeople;
+        private int numHelpers;
+        private long mutualHelpFriendships;
+        private int numComponents;
+        private int largestComponent;
+        private int isolatedHelpers;
+
+        ComponentStats(int numPeople) {
+            this.numPeople = numPeople;
+        }
+
+        /** Number of people playing Move 1. */
+        public int getNumHelpers() {
+            return numHelpers;
+        }
+
+        /** Number of friendships where both friends help each other. */
+        public long getMutualHelpFriendships() {
+            return mutualHelpFriendships;
+        }
+
+        /** Number of strongly connected components, counting everyone who is alone in one. */
+        public int getNumComponents() {
+            return numComponents;
+        }
+
+        /** Size of the largest strongly connected component. */
+        public int getLargestComponent() {
+            return largestComponent;
+        }
+
+        /** Fraction of all people in the largest component. */
+        public double getLargestComponentFraction() {
+            return numPeople == 0 ? 0 : (double) largestComponent / numPeople;
+        }
+
+        /** Number of helpers with no friend who helps them back. */
+        public int getIsolatedHelpers() {
+            return isolatedHelpers;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("People: %d%nHelpers: %d (%.2f%%)%nMutual help friendships: %d%n"
+                            + "Strongly connected components: %d%nLargest component: %d people (%.2f%%)%n"
+                            + "Helpers with nobody helping them back: %d%n",
+                    numPeople, numHelpers, numPeople == 0 ? 0 : 100.0 * numHelpers / numPeople,
+                    mutualHelpFriendships, numComponents, largestComponent,
+                    100 * getLargestComponentFraction(), isolatedHelpers);
+        }
+    }
+
+    /**
+     * Usage: java NetworkGame people averageFriends sync|async seed rows cols p1... p2...
+     * where the game is given in the same format as a BatchEvaluator input line.
+     */
+    public static void main(String[] args) {
+        if (args.length < 6) {
+            System.err.println("Usage: java NetworkGame people averageFriends sync|async seed"
+                    + " rows cols p1... p2...");
+            return;
+        }
+        int people = Integer.parseInt(args[0]);
+        double averageFriends = Double.parseDouble(args[1]);
+        boolean synchronous = args[2].equals("sync");
+        long seed = Long.parseLong(args[3]);
+        PayoffMatrix matrix = BatchEvaluator.parseGame(
+                String.join(" ", Arrays.copyOfRange(args, 4, args.length)));
+
+        long start = System.nanoTime();
+        SocialNetwork network = SocialNetwork.random(people, averageFriends, seed);
+        System.out.printf("Built %d friendships in %.2f s%n", network.getNumFriendships(),
+                (System.nanoTime() - start) / 1e9);
+        start = System.nanoTime();
+        NetworkGame game = new NetworkGame(matrix, network);
+        game.randomizeMoves(seed);
+        int rounds = game.run(synchronous, 1000);
+        System.out.printf(rounds > 0 ? "Settled after %d rounds in %.2f s%n"
+                : "Still changing after %d rounds (%.2f s)%n", Math.abs(rounds),
+                (System.nanoTime() - start) / 1e9);
+        System.out.print(game.getComponentStats());
+    }
+}
@@ -0,0 +1,360 @@
+/**
+ * Table lookups for 2x2 and 3x3 games where every best response is unique.
+ *
+ * In such a game which move is each player's best response to each of the
+ * other player's moves (the best-response signature) already decides the
+ * pure equilibria, whether a player has a dominant move, and the cycles of
+ * the best-response dynamics (players taking turns switching to their best
+ * response, as in BestResponseGraph). There are only 2^2 * 2^2 = 16
+ * signatures for 2x2 games and 3^3 * 3^3 = 729 for 3x3 ones, so all of that
+ * is computed once when the class loads and packed into one int per
+ * signature.
+ *
+ * Whether there is an equilibrium that is not pure follows from the number
+ * of pure ones: every pure equilibrium of such a game is strict, and the
+ * equilibria of any game add up to an odd number when counted by index, so
+ * an even number of pure equilibria (including none) means there is a mixed
+ * one too. A dominant move rules mixed equilibria out. For 2x2 games one of
+ * the two always applies; for 3x3 games with one or three pure equilibria
+ * and no dominant move it depends on the actual payoffs.
+ *
+ * For 2x2 games where each player's four payoffs are all different, the
+ * game is also one of the 144 strict ordinal 2x2 games of Robinson and
+ * Goforth, numbered here from 0 to 143 in order of the smallest ranking
+ * among the four ways of listing its rows and columns.
+ */
+public final class OrdinalClassifier {
+    /** No equilibrium other than the pure ones. */
+    public static final int NO_MIXED = 0;
+    /** At least one equilibrium where someone mixes. */
+    public static final int HAS_MIXED = 1;
+    /** Depends on the payoffs, not just on the best responses. */
+    public static final int MIXED_UNKNOWN = 2;
+
+    // layout of a packed table entry
+    private static final int PURE_MASK = 0x1FF;          // bit r * size + c for each pure equilibrium
+    private static final int MIXED_SHIFT = 9;            // 2 bits
+    private static final int CYCLES_SHIFT = 11;          // 3 bits: number of best-response cycles
+    private static final int CYCLE_LENGTH_SHIFT = 14;    // 4 bits: squares in the longest cycle
+    private static final int DOMINANT_BIT = 1 << 18;     // some player has a dominant move
+
+    private static final int[] TABLE_2X2 = buildTable(2);
+    private static final int[] TABLE_3X3 = buildTable(3);
+    // Robinson-Goforth class of each pair of payoff rankings, indexed by p1Rank * 24 + p2Rank
+    private static final byte[] ORDINAL_CLASS_2X2 = buildOrdinalClasses();
+
+    private OrdinalClassifier() {
+    }
+
+    /** The result of classifying one game. */
+    public static final class Classification {
+        private final int size;
+        private final int entry;
+        private final int ordinalClass;
+
+        private Classification(int size, int entry, int ordinalClass) {
+            this.size = size;
+            this.entry = entry;
+            this.ordinalClass = ordinalClass;
+        }
+
+        /** Number of moves each player has (2 or 3). */
+        public int getSize() {
+            return size;
+        }
+
+        /** Number of pure strategy Nash Equilibria. */
+        public int getNumPureEquilibria() {
+            return Integer.bitCount(entry & PURE_MASK);
+        }
+
+        /** Whether (row, col), counting from 1, is a pure strategy Nash Equilibrium. */
+        public boolean isPureEquilibrium(int row, int col) {
+            return (entry & (1 << ((row - 1) * size + col - 1))) != 0;
+        }
+
+        /** NO_MIXED, HAS_MIXED or MIXED_UNKNOWN. */
+        public int getMixed() {
+            return mixed(entry);
+        }
+
+        /** Whether some player has a move that is their best response to everything. */
+        public boolean hasDominantMove() {
+            return (entry & DOMINANT_BIT) != 0;
+        }
+
+        /** Number of cycles the best-response dynamics can end up going around. */
+        public int getNumCycles() {
+            return (entry >>> CYCLES_SHIFT) & 7;
+        }
+
+        /** Number of squares in the longest best-response cycle, or 0 if there are none. */
+        public int getLongestCycle() {
+            return (entry >>> CYCLE_LENGTH_SHIFT) & 15;
+        }
+
+        /**
+         * The Robinson-Goforth class (0 to 143) of a 2x2 game where each
+         * player's payoffs are all different, or -1 otherwise.
+         */
+        public int getOrdinalClass() {
+            return ordinalClass;
+        }
+    }
+
+    /**
+     * Classifies a 2x2 or 3x3 game. Returns null for other sizes or if some
+     * best response is tied.
+     */
+    public static Classification classify(BimatrixGame game) {
+        int entry = lookup(game);
+        if (entry < 0) {
+            return null;
+        }
+        int size = game.getNumRows();
+        return new Classification(size, entry, size == 2 ? ordinalClass(game) : -1);
+    }
+
+    /**
+     * The packed table entry for a 2x2 or 3x3 game, or -1 for other sizes or
+     * if some best response is tied.
+     */
+    static int lookup(BimatrixGame game) {
+        int size = game.getNumRows();
+        if (size != game.getNumCols() || (size != 2 && size != 3)) {
+            return -1;
+        }
+        int signature = 0;
+        int place = 1;
+        for (int c = 1; c <= size; c++) {
+            int best = uniqueBest(game, c, 1, size);
+            if (best < 0) return -1;
+            signature += best * place;
+            place *= size;
+        }
+        for (int r = 1; r <= size; r++) {
+            int best = uniqueBest(game, r, 2, size);
+            if (best < 0) return -1;
+            signature += best * place;
+            place *= size;
+        }
+        return size == 2 ? TABLE_2X2[signature] : TABLE_3X3[signature];
+    }
+
+    /** The given player's only best response (from 0) to the other player's move, or -1 if tied. */
+    private static int uniqueBest(BimatrixGame game, int move, int player, int size) {
+        int best = 0;
+        int bestPayoff = Integer.MIN_VALUE;
+        boolean tied = false;
+        for (int i = 1; i <= size; i++) {
+            int payoff = player == 1 ? game.getP1Payoff(i, move) : game.getP2Payoff(move, i);
+            if (i == 1 || payoff > bestPayoff) {
+                best = i - 1;
+                bestPayoff = payoff;
+                tied = false;
+            } else if (payoff == bestPayoff) {
+                tied = true;
+            }
+        }
+        return tied ? -1 : best;
+    }
+
+    /** Unpacks the pure equilibria of an entry. */
+    static int pureMask(int entry) {
+        return entry & PURE_MASK;
+    }
+
+    /** Unpacks the mixed equilibrium state of an entry. */
+    static int mixed(int entry) {
+        return (entry >>> MIXED_SHIFT) & 3;
+    }
+
+    // ---- table generation ----
+
+    /** Builds the entry for every best-response signature of size x size games. */
+    private static int[] buildTable(int size) {
+        int perPlayer = size == 2 ? 4 : 27;
+        int[] table = new int[perPlayer * perPlayer];
+        int[] bestRow = new int[size];
+        int[] bestCol = new int[size];
+        for (int signature = 0; signature < table.length; signature++) {
+            int rest = signature;
+            for (int c = 0; c < size; c++) {
+                bestRow[c] = rest % size;
+                rest /= size;
+            }
+            for (int r = 0; r < size; r++) {
+                bestCol[r] = rest % size;
+                rest /= size;
+            }
+            table[signature] = entryFor(size, bestRow, bestCol);
+        }
+        return table;
+    }
+
+    private static int entryFor(int size, int[] bestRow, int[] bestCol) {
+        int entry = 0;
+        int pure = 0;
+        for (int r = 0; r < size; r++) {
+            int c = bestCol[r];
+            if (bestRow[c] == r) {
+                entry |= 1 << (r * size + c);
+                pure++;
+            }
+        }
+        boolean dominant = allSame(bestRow) || allSame(bestCol);
+        if (dominant) {
+            entry |= DOMINANT_BIT;
+        }
+        int mixed = dominant ? NO_MIXED : pure % 2 == 0 ? HAS_MIXED : MIXED_UNKNOWN;
+        entry |= mixed << MIXED_SHIFT;
+
+        // walk the dynamics from every state; a state is square * 2 + (player to move - 1)
+        int numStates = size * size * 2;
+        int[] seenIn = new int[numStates];
+        int cycles = 0;
+        int longest = 0;
+        for (int start = 0; start < numStates; start++) {
+            int state = start;
+            while (seenIn[state] == 0) {
+                seenIn[state] = start + 1;
+                state = next(size, bestRow, bestCol, state);
+            }
+            if (seenIn[state] != start + 1) {
+                // ran into an attractor found from an earlier start
+                continue;
+            }
+            // state is on a new attractor; count the squares on it
+            long squares = 0;
+            int length = 0;
+            int s = state;
+            do {
+                if ((squares & (1L << (s >>> 1))) == 0) {
+                    squares |= 1L << (s >>> 1);
+                    length++;
+                }
+                s = next(size, bestRow, bestCol, s);
+            } while (s != state);
+            if (length > 1) {
+                cycles++;
+                longest = Math.max(longest, length);
+            }
+        }
+        entry |= cycles << CYCLES_SHIFT;
+        entry |= longest << CYCLE_LENGTH_SHIFT;
+        return entry;
+    }
+
+    private static boolean allSame(int[] moves) {
+        for (int move : moves) {
+            if (move != moves[0]) return false;
+        }
+        return true;
+    }
+
+    /** The mover switches to their best response, then the turn passes. */
+    private static int next(int size, int[] bestRow, int[] bestCol, int state) {
+        int square = state >>> 1;
+        int row = square / size;
+        int col = square % size;
+        if ((state & 1) == 0) {
+            return (bestRow[col] * size + col) * 2 + 1;
+        }
+        return (row * size + bestCol[row]) * 2;
+    }
+
+    /**
+     * Numbers the 144 classes of pairs of rankings of the four squares,
+     * where swapping the rows or the columns gives the same class.
+     */
+    private static byte[] buildOrdinalClasses() {
+        int[][] rankings = permutations4();
+        byte[] classes = new byte[24 * 24];
+        java.util.Arrays.fill(classes, (byte) -1);
+        int next = 0;
+        for (int signature = 0; signature < classes.length; signature++) {
+            int smallest = signature;
+            for (int swap = 1; swap < 4; swap++) {
+                smallest = Math.min(smallest, relabel(rankings, signature, (swap & 1) != 0, (swap & 2) != 0));
+            }
+            if (smallest == signature) {
+                classes[signature] = (byte) next++;
+            } else {
+                classes[signature] = classes[smallest];
+            }
+        }
+        return classes;
+    }
+
+    /** The signature of the game with its rows and/or columns swapped. */
+    private static int relabel(int[][] rankings, int signature, boolean swapRows, boolean swapCols) {
+        int[] p1 = rankings[signature / 24].clone();
+        int[] p2 = rankings[signature % 24].clone();
+        int[] moved = new int[4];
+        for (int square = 0; square < 4; square++) {
+            int r = square >> 1 ^ (swapRows ? 1 : 0);
+            int c = square & 1 ^ (swapCols ? 1 : 0);
+            moved[square] = r * 2 + c;
+        }
+        int[] q1 = new int[4];
+        int[] q2 = new int[4];
+        for (int square = 0; square < 4; square++) {
+            q1[moved[square]] = p1[square];
+            q2[moved[square]] = p2[square];
+        }
+        return rankIndex(q1) * 24 + rankIndex(q2);
+    }
+
+    /** The Robinson-Goforth class of a 2x2 game, or -1 if a player has two equal payoffs. */
+    private static int ordinalClass(BimatrixGame game) {
+        int[] p1 = {game.getP1Payoff(1, 1), game.getP1Payoff(1, 2), game.getP1Payoff(2, 1), game.getP1Payoff(2, 2)};
+        int[] p2 = {game.getP2Payoff(1, 1), game.getP2Payoff(1, 2), game.getP2Payoff(2, 1), game.getP2Payoff(2, 2)};
+        int[] r1 = ranks(p1);
+        int[] r2 = ranks(p2);
+        if (r1 == null || r2 == null) {
+            return -1;
+        }
+        return ORDINAL_CLASS_2X2[rankIndex(r1) * 24 + rankIndex(r2)];
+    }
+
+    /** Rank (0 for the smallest) of each of four distinct payoffs, or null if two are equal. */
+    private static int[] ranks(int[] payoffs) {
+        int[] ranks = new int[4];
+        for (int i = 0; i < 4; i++) {
+            for (int j = 0; j < 4; j++) {
+                if (j != i && payoffs[j] == payoffs[i]) return null;
+                if (payoffs[j] < payoffs[i]) ranks[i]++;
+            }
+        }
+        return ranks;
+    }
+
+    /** Index (0 to 23) of a permutation of 0..3 in lexicographic order. */
+    private static int rankIndex(int[] ranks) {
+        int index = 0;
+        for (int i = 0; i < 4; i++) {
+            int smallerLater = 0;
+            for (int j = i + 1; j < 4; j++) {
+                if (ranks[j] < ranks[i]) smallerLater++;
+            }
+            index = index * (4 - i) + smallerLater;
+        }
+        return index;
+    }
+
+    /** Every permutation of 0..3, in lexicographic order. */
+    private static int[][] permutations4() {
+        int[][] permutations = new int[24][];
+        int i = 0;
+        for (int a = 0; a < 4; a++) {
+            for (int b = 0; b < 4; b++) {
+                for (int c = 0; c < 4; c++) {
+                    int d = 6 - a - b - c;
+                    if (a == b || a == c || b == c || d == a || d == b || d == c) continue;
+                    permutations[i++] = new int[]{a, b, c, d};
+                }
+            }
+        }
+        return permutations;
+    }
+}
@@ -1,18 +1,295 @@
 import java.util.*;
 
-public class PayoffMatrix {
-    private int numMoves;
-    private int[][] p1Payoffs;
-    private int[][] p2Payoffs;
+public class PayoffMatrix implements BimatrixGame {
+    private int numRows;
+    private int numCols;
+    // row-major payoffs: the entry for (row r, column c) lives at r * numCols + c
+    private int[] p1Payoffs;
+    private int[] p2Payoffs;
+    // best-response index, kept up to date by the setters: p1ColMax[c] is P1's
+    // best payoff against column c and p1BestRow[c] the first row reaching it;
+    // p2RowMax[r] and p2BestCol[r] are the same for P2 against row r
+    private int[] p1ColMax;
+    private int[] p1BestRow;
+    private int[] p2RowMax;
+    private int[] p2BestCol;
+    // every tied best response as a bitset: column c owns colWords longs of
+    // p1BestRows with a bit per row, row r owns rowWords longs of p2BestCols
+    private long[] p1BestRows;
+    private long[] p2BestCols;
+    private int colWords;
+    private int rowWords;
+    // kept between findMinimaxEquilibrium calls so it can start from its last basis; every
+    // square whose payoffs add up to zeroSumTotal has been passed on to it, and
+    // mismatchedSquares counts the ones that do not (say P1's payoff was set but not yet P2's)
+    private ZeroSumSolver zeroSumSolver;
+    private int zeroSumTotal;
+    private int mismatchedSquares;
 
     /**
-     * Creates a 2-player payoff matrix with either 2 or 3 moves
-     * for Player 1 (P1) and Player 2 (P2)
+     * Creates a 2-player payoff matrix where Player 1 (P1) and
+     * Player 2 (P2) both have numMoves moves
      */
     public PayoffMatrix(int numMoves, int[][] p1Payoffs, int[][] p2Payoffs) {
-        this.numMoves = numMoves;
+        this(numMoves, numMoves, flatten(numMoves, numMoves, p1Payoffs),
+                flatten(numMoves, numMoves, p2Payoffs));
+    }
+
+    /**
+     * Creates a 2-player payoff matrix where P1 picks one of numRows
+     * rows and P2 picks one of numCols columns. Both payoff arrays are
+     * row-major (the payoff for row r, column c, counting from 0, is at
+     * index r * numCols + c) and are used directly, not copied, so
+     * later changes must go through the setters to keep the best
+     * responses up to date.
+     */
+    public PayoffMatrix(int numRows, int numCols, int[] p1Payoffs, int[] p2Payoffs) {
+        int cells = cellCount(numRows, numCols);
+        if (p1Payoffs.length != cells || p2Payoffs.length != cells) {
+            throw new IllegalArgumentException("Payoff arrays must have " + cells + " entries");
+        }
+        this.numRows = numRows;
+        this.numCols = numCols;
         this.p1Payoffs = p1Payoffs;
         this.p2Payoffs = p2Payoffs;
+        buildBestResponseIndex();
+    }
+
+    /**
+     * Rebuilds the best-response index after the payoff arrays passed to
+     * the constructor were changed directly instead of through the
+     * setters. Reuses the index's arrays, so it allocates nothing.
+     */
+    public void refreshBestResponses() {
+        buildBestResponseIndex();
+        zeroSumSolver = null;
+    }
+
+    /**
+     * Computes every best response from scratch in two row-major passes,
+     * allocating the index only when the matrix size changed.
+     */
+    private void buildBestResponseIndex() {
+        if (p1ColMax == null || p1ColMax.length != numCols || p2RowMax.length != numRows) {
+            colWords = (numRows + 63) >>> 6;
+            rowWords = (numCols + 63) >>> 6;
+            p1ColMax = new int[numCols];
+            p1BestRow = new int[numCols];
+            p2RowMax = new int[numRows];
+            p2BestCol = new int[numRows];
+            p1BestRows = new long[numCols * colWords];
+            p2BestCols = new long[numRows * rowWords];
+        } else {
+            Arrays.fill(p1BestRows, 0L);
+            Arrays.fill(p2BestCols, 0L);
+        }
+
+        // first pass finds P1's best payoff in every column and P2's in every row
+        System.arraycopy(p1Payoffs, 0, p1ColMax, 0, numCols);
+        for (int r = 0; r < numRows; r++) {
+            int base = r * numCols;
+            int best = p2Payoffs[base];
+            for (int c = 0; c < numCols; c++) {
+                int p1 = p1Payoffs[base + c];
+                if (p1 > p1ColMax[c]) {
+                    p1ColMax[c] = p1;
+                }
+                int p2 = p2Payoffs[base + c];
+                if (p2 > best) {
+                    best = p2;
+                }
+            }
+            p2RowMax[r] = best;
+        }
+
+        // second pass records every move that reaches the best payoff
+        Arrays.fill(p1BestRow, -1);
+        for (int r = numRows - 1; r >= 0; r--) {
+            int base = r * numCols;
+            int best = p2RowMax[r];
+            int firstBest = -1;
+            for (int c = numCols - 1; c >= 0; c--) {
+                if (p1Payoffs[base + c] == p1ColMax[c]) {
+                    p1BestRows[c * colWords + (r >>> 6)] |= 1L << r;
+                    p1BestRow[c] = r;
+                }
+                if (p2Payoffs[base + c] == best) {
+                    p2BestCols[r * rowWords + (c >>> 6)] |= 1L << c;
+                    firstBest = c;
+                }
+            }
+            p2BestCol[r] = firstBest;
+        }
+    }
+
+    /** Recomputes P1's best responses to column c. */
+    private void rebuildColumn(int c) {
+        int best = p1Payoffs[c];
+        for (int r = 1; r < numRows; r++) {
+            best = Math.max(best, p1Payoffs[r * numCols + c]);
+        }
+        int words = c * colWords;
+        Arrays.fill(p1BestRows, words, words + colWords, 0L);
+        p1BestRow[c] = -1;
+        for (int r = 0; r < numRows; r++) {
+            if (p1Payoffs[r * numCols + c] == best) {
+                p1BestRows[words + (r >>> 6)] |= 1L << r;
+                if (p1BestRow[c] < 0) p1BestRow[c] = r;
+            }
+        }
+        p1ColMax[c] = best;
+    }
+
+    /** Recomputes P2's best responses to row r. */
+    private void rebuildRow(int r) {
+        int base = r * numCols;
+        int best = p2Payoffs[base];
+        for (int c = 1; c < numCols; c++) {
+            best = Math.max(best, p2Payoffs[base + c]);
+        }
+        int words = r * rowWords;
+        Arrays.fill(p2BestCols, words, words + rowWords, 0L);
+        p2BestCol[r] = -1;
+        for (int c = 0; c < numCols; c++) {
+            if (p2Payoffs[base + c] == best) {
+                p2BestCols[words + (c >>> 6)] |= 1L << c;
+                if (p2BestCol[r] < 0) p2BestCol[r] = c;
+            }
+        }
+        p2RowMax[r] = best;
+    }
+
+    /**
+     * Changes both players' payoffs for one square. Only P1's best
+     * responses to that column and P2's best responses to that row
+     * are updated.
+     */
+    public void setPayoffs(int row, int col, int p1Payoff, int p2Payoff) {
+        setP1Payoff(row, col, p1Payoff);
+        setP2Payoff(row, col, p2Payoff);
+    }
+
+    /** Changes P1's payoff for one square, counting rows and columns from 1. */
+    public void setP1Payoff(int row, int col, int payoff) {
+        int r = row - 1;
+        int c = col - 1;
+        int i = r * numCols + c;
+        int old = p1Payoffs[i];
+        if (old == payoff) {
+            return;
+        }
+        p1Payoffs[i] = payoff;
+        updateZeroSumSolver(row, col, old + p2Payoffs[i]);
+        int best = p1ColMax[c];
+        int words = c * colWords;
+        if (payoff > best) {
+            // the edited square is now the only best response
+            Arrays.fill(p1BestRows, words, words + colWords, 0L);
+            p1BestRows[words + (r >>> 6)] = 1L << r;
+            p1ColMax[c] = payoff;
+            p1BestRow[c] = r;
+        } else if (payoff == best) {
+            p1BestRows[words + (r >>> 6)] |= 1L << r;
+            p1BestRow[c] = Math.min(p1BestRow[c], r);
+        } else if (old == best) {
+            // the square may have been the only best response, so rescan the column
+            rebuildColumn(c);
+        }
+    }
+
+    /** Changes P2's payoff for one square, counting rows and columns from 1. */
+    public void setP2Payoff(int row, int col, int payoff) {
+        int r = row - 1;
+        int c = col - 1;
+        int i = r * numCols + c;
+        int old = p2Payoffs[i];
+        if (old == payoff) {
+            return;
+        }
+        p2Payoffs[i] = payoff;
+        updateZeroSumSolver(row, col, p1Payoffs[i] + old);
+        int best = p2RowMax[r];
+        int words = r * rowWords;
+        if (payoff > best) {
+            Arrays.fill(p2BestCols, words, words + rowWords, 0L);
+            p2BestCols[words + (c >>> 6)] = 1L << c;
+            p2RowMax[r] = payoff;
+            p2BestCol[r] = c;
+        } else if (payoff == best) {
+            p2BestCols[words + (c >>> 6)] |= 1L << c;
+            p2BestCol[r] = Math.min(p2BestCol[r], c);
+        } else if (old == best) {
+            rebuildRow(r);
+        }
+    }
+
+    /**
+     * Changes the number of moves each player has. The payoffs of
+     * squares in both the old and new matrix are kept and new squares
+     * start at 0 for both players.
+     */
+    public void resize(int newRows, int newCols) {
+        int cells = cellCount(newRows, newCols);
+        int[] newP1Payoffs = new int[cells];
+        int[] newP2Payoffs = new int[cells];
+        int keepRows = Math.min(numRows, newRows);
+        int keepCols = Math.min(numCols, newCols);
+        for (int r = 0; r < keepRows; r++) {
+            System.arraycopy(p1Payoffs, r * numCols, newP1Payoffs, r * newCols, keepCols);
+            System.arraycopy(p2Payoffs, r * numCols, newP2Payoffs, r * newCols, keepCols);
+        }
+        numRows = newRows;
+        numCols = newCols;
+        p1Payoffs = newP1Payoffs;
+        p2Payoffs = newP2Payoffs;
+        buildBestResponseIndex();
+        zeroSumSolver = null;
+    }
+
+    /**
+     * Passes an edited square on to the kept ZeroSumSolver once its payoffs
+     * add up to the constant sum again, given what they added up to before.
+     */
+    private void updateZeroSumSolver(int row, int col, int oldSum) {
+        if (zeroSumSolver == null) {
+            return;
+        }
+        int i = (row - 1) * numCols + col - 1;
+        boolean wasMatched = oldSum == zeroSumTotal;
+        boolean matched = p1Payoffs[i] + p2Payoffs[i] == zeroSumTotal;
+        if (wasMatched && !matched) {
+            mismatchedSquares++;
+        } else if (!wasMatched && matched) {
+            mismatchedSquares--;
+        }
+        if (matched) {
+            zeroSumSolver.setP1Payoff(row, col, p1Payoffs[i]);
+        }
+    }
+
+    /**
+     * Number of squares in a numRows x numCols matrix. Throws
+     * IllegalArgumentException if either is not positive or there are
+     * too many squares to fit in an array.
+     */
+    private static int cellCount(int numRows, int numCols) {
+        if (numRows <= 0 || numCols <= 0) {
+            throw new IllegalArgumentException("Matrix must have at least one row and column");
+        }
+        long cells = (long) numRows * numCols;
+        if (cells > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Matrix has too many squares: " + cells);
+        }
+        return (int) cells;
+    }
+
+    /** Copies a numRows x numCols int[][] into a row-major array. */
+    private static int[] flatten(int numRows, int numCols, int[][] payoffs) {
+        int[] flat = new int[cellCount(numRows, numCols)];
+        for (int r = 0; r < numRows; r++) {
+            System.arraycopy(payoffs[r], 0, flat, r * numCols, numCols);
+        }
+        return flat;
     }
 
     /**
@@ -23,109 +300,143 @@ public class PayoffMatrix {
      * strategy Nash Equilibrium exists.
      */
     public ArrayList<ArrayList<Integer>> findPureNashEquilibrium() {
-        ArrayList<ArrayList<Integer>> equilibria = new ArrayList<>();
-        boolean exists = false;
-        //Find P1's best response to P2's first move option
-        int p1BRToMove1 = findBestResponse(1, 1);
-        //Find P1's best response to P2's second move option
-        int p1BRToMove2 = findBestResponse(2, 1);
-        //Find P2's best response to P1's first move option
-        int p2BRToMove1 = findBestResponse(1, 2);
-        //Find P2's best response to P1's second move option
-        int p2BRToMove2 = findBestResponse(2, 2);
-
-        //check if Nash Equilibrium is in top left square
-        if (p1BRToMove1 == 1 && p2BRToMove1 == 1) {
-            exists = true;
-            equilibria.add(new ArrayList<>(Arrays.asList(1, 1)));
-
-        }
-        //check first row second column
-        if (p1BRToMove2 == 1 && p2BRToMove1 == 2) {
-            exists = true;
-            equilibria.add(new ArrayList<>(Arrays.asList(1, 2)));
-        }
-        //check second row first column
-        if (p1BRToMove1 == 2 && p2BRToMove2 == 1) {
-            exists = true;
-            equilibria.add(new ArrayList<>(Arrays.asList(2, 1)));
-        }
-        //check second row second column
-        if (p1BRToMove2 == 2 && p2BRToMove2 == 2) {
-            exists = true;
-            equilibria.add(new ArrayList<>(Arrays.asList(2, 2)));
-        }
-
-        if (numMoves == 3) {
-            //Find P1's best response to P2's third move option
-            int p1BRToMove3 = findBestResponse(3, 1);
-            //Find P2's best response to P1's third move option
-            int p2BRToMove3 = findBestResponse(3, 2);
-            //check first row third column
-            if (p1BRToMove3 == 1 && p2BRToMove1 == 3) {
-                exists = true;
-                equilibria.add(new ArrayList<>(Arrays.asList(1, 3)));
-            }
-            //check second row third column
-            if (p1BRToMove3 == 2 && p2BRToMove2 == 3) {
-                exists = true;
-                equilibria.add(new ArrayList<>(Arrays.asList(2, 3)));
-            }
-            //check third row first column
-            if (p1BRToMove1 == 3 && p2BRToMove3 == 1) {
-                exists = true;
-                equilibria.add(new ArrayList<>(Arrays.asList(3, 1)));
-            }
-            //check third row second column
-            if (p1BRToMove2 == 3 && p2BRToMove3 == 2) {
-                exists = true;
-                equilibria.add(new ArrayList<>(Arrays.asList(3, 2)));
-            }
-            //check third row third column
-            if (p1BRToMove3 == 3 && p2BRToMove3 == 3) {
-                exists = true;
-                equilibria.add(new ArrayList<>(Arrays.asList(3, 2)));
-            }
-        }
-
-        if (!exists) {
+        int[] cells = new int[numRows * numCols];
+        int count = findPureNashEquilibria(cells);
+        if (count == 0) {
             return null;
-        } else {
-            return equilibria;
         }
+        ArrayList<ArrayList<Integer>> equilibria = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            equilibria.add(new ArrayList<>(Arrays.asList(cells[i] / numCols + 1, cells[i] % numCols + 1)));
+        }
+        return equilibria;
+    }
+
+    /**
+     * Writes every pure strategy Nash Equilibrium into cells (which must
+     * hold at least numRows * numCols entries) as the 0-indexed cell code
+     * row * numCols + col, in row-major order, and returns how many were
+     * found. A cell is an equilibrium when P1's payoff is a maximum of its
+     * column and P2's payoff is a maximum of its row, so ties all count.
+     * Uses the best-response index, so this takes O(numRows + number of
+     * tied best responses) time.
+     */
+    @Override
+    public int findPureNashEquilibria(int[] cells) {
+        return findPureNashEquilibria(cells, 0, 0, numRows);
+    }
+
+    /**
+     * Same search as findPureNashEquilibria(cells) over rows fromRow up to
+     * (not including) toRow only, counting from 0, writing from cells[count]
+     * on. Returns the new count, so a long search can be done a few rows at a
+     * time.
+     */
+    int findPureNashEquilibria(int[] cells, int count, int fromRow, int toRow) {
+        for (int r = fromRow; r < toRow; r++) {
+            // walk P2's best responses to this row and keep those where P1's best response is this row
+            int words = r * rowWords;
+            for (int w = 0; w < rowWords; w++) {
+                long bits = p2BestCols[words + w];
+                while (bits != 0) {
+                    int c = (w << 6) + Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if ((p1BestRows[c * colWords + (r >>> 6)] & (1L << r)) != 0) {
+                        cells[count++] = r * numCols + c;
+                    }
+                }
+            }
+        }
+        return count;
     }
 
     /**
      * Finds best response for a given player,
      * given the other player's move. Returns null
-     * if given invalid input.
+     * if given invalid input. When several moves tie,
+     * returns the first; this is a lookup in the
+     * best-response index, so it takes O(1) time.
      */
+    @Override
     public Integer findBestResponse(int move, int player) {
-        if (move <= 0 || move > numMoves || player <= 0 || player > 2) {
-            return null;
-        }
-        //Find player's best response to the other player's move
-        int bestResponse = 1;
         if (player == 1) {
-            int max = p1Payoffs[0][move - 1];
-            if (max < p1Payoffs[1][move - 1]) {
-                bestResponse = 2;
-                max = p1Payoffs[1][move - 1];
+            if (move <= 0 || move > numCols) {
+                return null;
             }
-            if (numMoves == 3 && max < p1Payoffs[2][move - 1]) {
-                bestResponse = 3;
+            return p1BestRow[move - 1] + 1;
+        } else if (player == 2) {
+            if (move <= 0 || move > numRows) {
+                return null;
             }
+            return p2BestCol[move - 1] + 1;
+        }
+        return null;
+    }
+
+    /** P1's first best response (as a 0-indexed row) to the 0-indexed column col. */
+    int bestRowIndex(int col) {
+        return p1BestRow[col];
+    }
+
+    /** P2's first best response (as a 0-indexed column) to the 0-indexed row row. */
+    int bestColIndex(int row) {
+        return p2BestCol[row];
+    }
+
+    /**
+     * Returns whether response is one of the given player's best
+     * responses to the other player's move (there can be several
+     * when payoffs tie). Returns false if given invalid input.
+     */
+    public boolean isBestResponse(int response, int move, int player) {
+        if (player == 1) {
+            if (move <= 0 || move > numCols || response <= 0 || response > numRows) {
+                return false;
+            }
+            int r = response - 1;
+            return (p1BestRows[(move - 1) * colWords + (r >>> 6)] & (1L << r)) != 0;
         } else if (player == 2) {
-            int max = p2Payoffs[move - 1][0];
-            if (max < p2Payoffs[move - 1][1]) {
-                bestResponse = 2;
-                max = p2Payoffs[move - 1][1];
+            if (move <= 0 || move > numRows || response <= 0 || response > numCols) {
+                return false;
             }
-            if (numMoves == 3 && max < p2Payoffs[move - 1][2]) {
-                bestResponse = 3;
+            int c = response - 1;
+            return (p2BestCols[(move - 1) * rowWords + (c >>> 6)] & (1L << c)) != 0;
+        }
+        return false;
+    }
+
+    /**
+     * Returns every one of the given player's best responses to the
+     * other player's move, in increasing order. Returns null if given
+     * invalid input.
+     */
+    public int[] findAllBestResponses(int move, int player) {
+        long[] bits;
+        int words;
+        if (player == 1 && move > 0 && move <= numCols) {
+            bits = p1BestRows;
+            words = colWords;
+        } else if (player == 2 && move > 0 && move <= numRows) {
+            bits = p2BestCols;
+            words = rowWords;
+        } else {
+            return null;
+        }
+        int offset = (move - 1) * words;
+        int count = 0;
+        for (int w = 0; w < words; w++) {
+            count += Long.bitCount(bits[offset + w]);
+        }
+        int[] responses = new int[count];
+        int i = 0;
+        for (int w = 0; w < words; w++) {
+            long word = bits[offset + w];
+            while (word != 0) {
+                responses[i++] = (w << 6) + Long.numberOfTrailingZeros(word) + 1;
+                word &= word - 1;
             }
         }
-        return bestResponse;
+        return responses;
     }
 
     /**
@@ -140,91 +451,340 @@ public class PayoffMatrix {
      * null if the matrix is not 2x2.
      */
     public ArrayList<Double> findMixedNashEquilibrium() {
-        if (numMoves == 3) {
+        double[] pq = new double[2];
+        if (!findMixedNashEquilibrium(pq)) {
             return null;
         }
-        ArrayList<Double> pq = new ArrayList<>();
+        return new ArrayList<>(Arrays.asList(pq[0], pq[1]));
+    }
+
+    /**
+     * Same as findMixedNashEquilibrium(), but writes p and q into
+     * pq[0] and pq[1] instead of allocating a list. Returns false
+     * (leaving pq alone) in the cases where that method returns null.
+     */
+    public boolean findMixedNashEquilibrium(double[] pq) {
+        if (numRows != 2 || numCols != 2) {
+            return false;
+        }
 
         //solve for p
-        int pCoefficient = p2Payoffs[0][0] - p2Payoffs[1][0] - p2Payoffs[0][1] + p2Payoffs[1][1];
-        double pConstant = p2Payoffs[1][1] - p2Payoffs[1][0];
+        int pCoefficient = p2Payoffs[0] - p2Payoffs[2] - p2Payoffs[1] + p2Payoffs[3];
+        double pConstant = p2Payoffs[3] - p2Payoffs[2];
         if (pCoefficient == 0) {
-            return null;
+            return false;
         }
-        double p = pConstant / pCoefficient;
-        pq.add(p);
 
         //solve for q
-        int qCoefficient = p1Payoffs[0][0] - p1Payoffs[0][1] - p1Payoffs[1][0] + p1Payoffs[1][1];
-        double qConstant = p1Payoffs[1][1] - p1Payoffs[0][1];
+        int qCoefficient = p1Payoffs[0] - p1Payoffs[1] - p1Payoffs[2] + p1Payoffs[3];
+        double qConstant = p1Payoffs[3] - p1Payoffs[1];
         if (qCoefficient == 0) {
+            return false;
+        }
+
+        pq[0] = pConstant / pCoefficient;
+        pq[1] = qConstant / qCoefficient;
+        return true;
+    }
+
+    /**
+     * Returns every Nash Equilibrium of the game (pure ones included, as
+     * profiles putting probability 1 on a single move). Strictly dominated
+     * moves are removed first (see ReducedGame). If what is left has more
+     * than SupportEnumerationSolver.MAX_ENUMERATED_MOVES moves for either
+     * player, listing every equilibrium would take too long, so the list
+     * holds just one found with LemkeHowsonSolver, or none if it does not
+     * reach one in time or the thread is interrupted. The game is assumed
+     * to be nondegenerate; degenerate games with a continuum of equilibria
+     * only get the ones at the corners found by the search.
+     */
+    public List<StrategyProfile> findAllMixedNashEquilibria() {
+        return findAllMixedNashEquilibria(new ReducedGame(this));
+    }
+
+    /**
+     * Same as findAllMixedNashEquilibria(), for a caller that has already
+     * reduced this matrix (to report its size, say).
+     */
+    List<StrategyProfile> findAllMixedNashEquilibria(ReducedGame reduced) {
+        List<StrategyProfile> fromTable = findAllEquilibriaFromTable();
+        if (fromTable != null) {
+            return fromTable;
+        }
+        PayoffMatrix game = reduced.getGame();
+        if (SupportEnumerationSolver.canEnumerate(game)) {
+            return reduced.expandAll(new SupportEnumerationSolver().solve(game));
+        }
+        // one equilibrium is enough; try each starting label in turn, giving up on a label after a while
+        List<StrategyProfile> equilibria = new ArrayList<>();
+        int labels = game.getNumRows() + game.getNumCols();
+        LemkeHowsonSolver solver = new LemkeHowsonSolver(game);
+        for (int label = 1; label <= labels && !Thread.currentThread().isInterrupted(); label++) {
+            StrategyProfile profile = solver.solve(label, 4L * labels);
+            if (profile != null) {
+                equilibria.add(reduced.expand(profile));
+                break;
+            }
+        }
+        return equilibria;
+    }
+
+    /**
+     * Answers findAllMixedNashEquilibria() from OrdinalClassifier's table for
+     * 2x2 and 3x3 games without tied best responses, when the table alone
+     * decides it: always for 2x2 games (the pure equilibria, plus the one
+     * mixed equilibrium if there is one), and for 3x3 games where a player
+     * has a dominant move. Returns null otherwise.
+     */
+    private List<StrategyProfile> findAllEquilibriaFromTable() {
+        int entry = OrdinalClassifier.lookup(this);
+        if (entry < 0 || (numRows == 3 && OrdinalClassifier.mixed(entry) != OrdinalClassifier.NO_MIXED)) {
             return null;
         }
-        double q = qConstant / qCoefficient;
-        pq.add(q);
+        List<StrategyProfile> equilibria = new ArrayList<>();
+        int pure = OrdinalClassifier.pureMask(entry);
+        for (int cell = 0; cell < numRows * numCols; cell++) {
+            if ((pure & (1 << cell)) != 0) {
+                double[] x = new double[numRows];
+                double[] y = new double[numCols];
+                x[cell / numCols] = 1;
+                y[cell % numCols] = 1;
+                equilibria.add(new StrategyProfile(x, y, p1Payoffs[cell], p2Payoffs[cell]));
+            }
+        }
+        double[] pq = new double[2];
+        if (OrdinalClassifier.mixed(entry) == OrdinalClassifier.HAS_MIXED && findMixedNashEquilibrium(pq)) {
+            double[] x = {pq[0], 1 - pq[0]};
+            double[] y = {pq[1], 1 - pq[1]};
+            double p1Payoff = 0;
+            double p2Payoff = 0;
+            for (int cell = 0; cell < 4; cell++) {
+                double weight = x[cell / 2] * y[cell % 2];
+                p1Payoff += weight * p1Payoffs[cell];
+                p2Payoff += weight * p2Payoffs[cell];
+            }
+            equilibria.add(new StrategyProfile(x, y, p1Payoff, p2Payoff));
+        }
+        return equilibria;
+    }
+
+    /**
+     * For a 2x2 or 3x3 game where no best response is tied, returns its pure
+     * equilibria, best-response cycles and (for 2x2) ordinal class from a
+     * precomputed table; returns null otherwise.
+     */
+    public OrdinalClassifier.Classification classifyOrdinal() {
+        return OrdinalClassifier.classify(this);
+    }
+
+    /**
+     * Returns one Nash Equilibrium of the game found with the Lemke-Howson
+     * algorithm, which is much faster than finding all of them on large
+     * matrices. missedLabel picks the starting point: 1 to numRows are P1's
+     * moves and numRows + 1 to numRows + numCols are P2's moves. The
+     * algorithm runs after strictly dominated moves are removed, and if the
+     * move missedLabel stands for was one of them, it starts from P1's
+     * first remaining move instead. Returns null if missedLabel is invalid
+     * or the game is degenerate enough that the pivoting does not finish.
+     */
+    public StrategyProfile findMixedNashEquilibrium(int missedLabel) {
+        if (missedLabel <= 0 || missedLabel > numRows + numCols) {
+            return null;
+        }
+        ReducedGame reduced = new ReducedGame(this);
+        Integer label;
+        if (missedLabel <= numRows) {
+            label = reduced.getReducedRow(missedLabel);
+        } else {
+            label = reduced.getReducedCol(missedLabel - numRows);
+            if (label != null) {
+                label += reduced.getGame().getNumRows();
+            }
+        }
+        return reduced.expand(new LemkeHowsonSolver(reduced.getGame()).solve(label == null ? 1 : label));
+    }
+
+    /**
+     * Returns the number P1's and P2's payoffs add up to in every square if
+     * the game is constant-sum (0 for a zero-sum game), or null if it is not.
+     */
+    public Integer getConstantSum() {
+        int sum = p1Payoffs[0] + p2Payoffs[0];
+        for (int i = 1; i < p1Payoffs.length; i++) {
+            if (p1Payoffs[i] + p2Payoffs[i] != sum) {
+                return null;
+            }
+        }
+        return sum;
+    }
 
-        return pq;
+    /**
+     * For a constant-sum game, returns optimal (minimax) strategies for both
+     * players, with P1's payoff being the value of the game. This solves a
+     * linear program, so it handles far larger matrices than the general
+     * solvers. Returns null if the game is not constant-sum. The solver is
+     * kept and told about later edits, so after a few payoffs change the
+     * next call starts from the last solution instead of from scratch.
+     */
+    public StrategyProfile findMinimaxEquilibrium() {
+        if (zeroSumSolver != null && mismatchedSquares > 0) {
+            // the game is no longer constant-sum
+            zeroSumSolver = null;
+        }
+        if (zeroSumSolver == null) {
+            Integer sum = getConstantSum();
+            if (sum == null) {
+                return null;
+            }
+            zeroSumSolver = new ZeroSumSolver(this);
+            zeroSumTotal = sum;
+            mismatchedSquares = 0;
+        }
+        return zeroSumSolver.solve();
     }
 
     /**
-     * Getter for numMoves
+     * Getter for numMoves (the number of moves P1 has; for a
+     * square matrix this is also the number P2 has)
      */
     public int getNumMoves() {
-        return numMoves;
+        return numRows;
+    }
+
+    /**
+     * Getter for the number of rows (P1's moves)
+     */
+    @Override
+    public int getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * Getter for the number of columns (P2's moves)
+     */
+    @Override
+    public int getNumCols() {
+        return numCols;
+    }
+
+    /**
+     * Returns P1's payoff for the given row and column,
+     * both counting from 1 like moves do
+     */
+    @Override
+    public int getP1Payoff(int row, int col) {
+        return p1Payoffs[(row - 1) * numCols + col - 1];
     }
 
+    /**
+     * Returns P2's payoff for the given row and column,
+     * both counting from 1 like moves do
+     */
+    @Override
+    public int getP2Payoff(int row, int col) {
+        return p2Payoffs[(row - 1) * numCols + col - 1];
+    }
+
+    /**
+     * Simulates players taking turns switching to their best response,
+     * starting from the square (startRow, startCol) right after
+     * deviatingPlayer switches to deviationMove. Returns each square
+     * visited as "Move<row>,Move<col>", stopping once the player whose
+     * turn it is is already playing a best response, or marking the
+     * first repeated square with " (cycle detected)".
+     */
     public List<String> simulateDeviationPath(int startRow, int startCol, int deviatingPlayer, int deviationMove) {
-        List<String> path = new ArrayList<>();
-        path.add("Move" + startRow + ",Move" + startCol);
+        int[] states = new int[getMaxDeviationPathLength()];
+        long[] visited = new long[(numRows * numCols + 63) >>> 6];
+        int length = simulateDeviationPath(startRow, startCol, deviatingPlayer, deviationMove, states, visited);
+        return renderDeviationPath(states, length);
+    }
 
-        int currentP1Move = startRow;
-        int currentP2Move = startCol;
-        Set<String> visitedStates = new HashSet<>();
-        visitedStates.add("Move" + currentP1Move + ",Move" + currentP2Move);
+    /**
+     * Same walk as simulateDeviationPath, without building any strings
+     * or collections. Each square is written to path as the 0-indexed
+     * cell code row * numCols + col, and path must hold at least
+     * getMaxDeviationPathLength() entries. visited is a bitset with at
+     * least numRows * numCols bits that must be all zero; it is cleared
+     * again before returning so the same one can be reused for every
+     * call. Returns the number of squares written, negated if the walk
+     * stopped because it came back to a square it had already visited
+     * (which is then the last one written).
+     */
+    public int simulateDeviationPath(int startRow, int startCol, int deviatingPlayer, int deviationMove,
+                                     int[] path, long[] visited) {
+        int row = startRow - 1;
+        int col = startCol - 1;
+        int length = 0;
+        path[length++] = row * numCols + col;
+        markVisited(visited, row * numCols + col);
 
         // first deviation specified by input
         if (deviatingPlayer == 1) {
-            currentP1Move = deviationMove;
+            row = deviationMove - 1;
         } else {
-            currentP2Move = deviationMove;
+            col = deviationMove - 1;
         }
-        String newState = "Move" + currentP1Move + ",Move" + currentP2Move;
-        path.add(newState);
-        visitedStates.add(newState);
+        path[length++] = row * numCols + col;
+        markVisited(visited, row * numCols + col);
 
-        // back and forth between deviatign players
+        // back and forth between deviating players
         int activePlayer = (deviatingPlayer == 1) ? 2 : 1;
-        int maxIter = numMoves * 4;
-        int iter = 0;
-
-        while (iter < maxIter) {
-            iter++;
-
-            // get best responses as next move
-            int newMove;
+        int maxIter = (numRows + numCols) * 2;
+        boolean cycle = false;
+        for (int iter = 0; iter < maxIter; iter++) {
             if (activePlayer == 1) {
-                newMove = findBestResponse(currentP2Move, 1);
-                if (newMove == currentP1Move) break;
-                currentP1Move = newMove;
+                int newRow = bestRowIndex(col);
+                if (newRow == row) break;
+                row = newRow;
             } else {
-                newMove = findBestResponse(currentP1Move, 2);
-                if (newMove == currentP2Move) break;
-                currentP2Move = newMove;
+                int newCol = bestColIndex(row);
+                if (newCol == col) break;
+                col = newCol;
             }
 
-            newState = "Move" + currentP1Move + ",Move" + currentP2Move;
-
+            int state = row * numCols + col;
+            path[length++] = state;
             // if cycles we stop
-            if (visitedStates.contains(newState)) {
-                path.add(newState + " (cycle detected)");
+            if ((visited[state >>> 6] & (1L << state)) != 0) {
+                cycle = true;
                 break;
             }
-
-            path.add(newState);
-            visitedStates.add(newState);
+            markVisited(visited, state);
             activePlayer = 3 - activePlayer;
         }
 
-        return path;
+        // only clear the bits this walk set, so reusing visited stays cheap
+        for (int i = 0; i < length; i++) {
+            visited[path[i] >>> 6] = 0;
+        }
+        return cycle ? -length : length;
+    }
+
+    private static void markVisited(long[] visited, int state) {
+        visited[state >>> 6] |= 1L << state;
+    }
+
+    /** The most squares the int[] version of simulateDeviationPath can write. */
+    public int getMaxDeviationPathLength() {
+        return (numRows + numCols) * 2 + 2;
+    }
+
+    /**
+     * Turns the result of the int[] version of simulateDeviationPath into
+     * the "Move<row>,Move<col>" strings shown to the user.
+     */
+    public List<String> renderDeviationPath(int[] path, int length) {
+        boolean cycle = length < 0;
+        length = Math.abs(length);
+        List<String> rendered = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            String state = "Move" + (path[i] / numCols + 1) + ",Move" + (path[i] % numCols + 1);
+            if (cycle && i == length - 1) {
+                state += " (cycle detected)";
+            }
+            rendered.add(state);
+        }
+        return rendered;
     }
 }
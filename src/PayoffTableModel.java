@@ -0,0 +1,106 @@
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.TableCellRenderer;
+import java.awt.*;
+
+/**
+ * Shows a game in a JTable, one table cell per square. Payoffs are read from
+ * the game only when a cell is painted, and a JTable only paints the cells
+ * that are scrolled into view, so a 1000x1000 game costs no more to show
+ * than a 3x3 one. Table rows and columns count from 0, moves from 1.
+ */
+public class PayoffTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    // tables are never serialized, and games are not Serializable
+    private transient BimatrixGame game;
+
+    /** Creates a model showing the given game, which may be null for an empty table. */
+    public PayoffTableModel(BimatrixGame game) {
+        this.game = game;
+    }
+
+    /**
+     * Shows the given game instead. Call this again with the same game after
+     * resizing it, since the table's columns have to be rebuilt.
+     */
+    public void setGame(BimatrixGame game) {
+        this.game = game;
+        fireTableStructureChanged();
+    }
+
+    public BimatrixGame getGame() {
+        return game;
+    }
+
+    @Override
+    public int getRowCount() {
+        return game == null ? 0 : game.getNumRows();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return game == null ? 0 : game.getNumCols();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return "Move " + (column + 1);
+    }
+
+    /** The square's payoffs as "p1, p2", which is what gets copied out of the table. */
+    @Override
+    public Object getValueAt(int row, int column) {
+        return game.getP1Payoff(row + 1, column + 1) + ", " + game.getP2Payoff(row + 1, column + 1);
+    }
+
+    public int getP1Payoff(int row, int column) {
+        return game.getP1Payoff(row + 1, column + 1);
+    }
+
+    public int getP2Payoff(int row, int column) {
+        return game.getP2Payoff(row + 1, column + 1);
+    }
+
+    /**
+     * Draws a square the way the old grid of labels did, P1's payoff in blue
+     * over P2's in red. One renderer paints every visible cell in turn.
+     */
+    public static final class CellRenderer extends JPanel implements TableCellRenderer {
+        private static final long serialVersionUID = 1L;
+
+        private final JLabel p1Label = new JLabel("", SwingConstants.CENTER);
+        private final JLabel p2Label = new JLabel("", SwingConstants.CENTER);
+
+        public CellRenderer() {
+            super(new GridLayout(2, 1));
+            p1Label.setFont(p1Label.getFont().deriveFont(Font.BOLD));
+            p1Label.setForeground(Color.BLUE);
+            p2Label.setFont(p2Label.getFont().deriveFont(Font.BOLD));
+            p2Label.setForeground(Color.RED);
+            add(p1Label);
+            add(p2Label);
+        }
+
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+                                                       boolean hasFocus, int row, int column) {
+            PayoffTableModel model = (PayoffTableModel) table.getModel();
+            int modelRow = table.convertRowIndexToModel(row);
+            int modelColumn = table.convertColumnIndexToModel(column);
+            p1Label.setText(Integer.toString(model.getP1Payoff(modelRow, modelColumn)));
+            p2Label.setText(Integer.toString(model.getP2Payoff(modelRow, modelColumn)));
+            setBackground(isSelected ? table.getSelectionBackground() : Color.WHITE);
+            return this;
+        }
+
+        // the table lays out and repaints cells itself, so setText need not queue any of that
+        @Override
+        public void revalidate() {
+        }
+
+        @Override
+        public void repaint(long tm, int x, int y, int width, int height) {
+        }
+    }
+}
@@ -0,0 +1,319 @@
+import java.util.Arrays;
+
+/**
+ * A game on a graph where every edge is a two-player game between its two
+ * endpoints, and each player's payoff is the sum of what they get from
+ * the games on their edges. Every player picks one strategy and plays it
+ * in all of their edges. Players and strategies count from 1.
+ *
+ * A dense tensor of the same game would need an entry per strategy
+ * profile, which is hopeless for more than a few dozen players. Here the
+ * game is stored per edge: the two endpoints and a reference to the edge's
+ * game, whose rows are the first endpoint's strategies and whose columns
+ * are the second's. Edges with the same game share one instance, so
+ * memory grows with the number of edges. An adjacency list in two flat
+ * arrays (no object per player or edge) lets every best-response query
+ * look only at the player's own edges.
+ *
+ * Pure equilibria are found by local search: players take turns switching
+ * to a best response, and only the neighbors of a player who switched can
+ * stop best responding, so only they are queued to be checked again. This
+ * always finishes when the edge games make the whole game a potential game
+ * (for example when every edge is a coordination or identical-interest
+ * game), but can cycle in general, so it gives up after a given number of
+ * steps.
+ */
+public class PolymatrixGame {
+    private final int numPlayers;
+    private final int[] numStrategies;
+    private int maxStrategies;
+    private int numEdges;
+    // endpoints (from 0) and game of each edge; the first endpoint plays the rows
+    private int[] edgeFirst = new int[16];
+    private int[] edgeSecond = new int[16];
+    private BimatrixGame[] edgeGames = new BimatrixGame[16];
+    // the edges of player p are adjacency[adjacencyStart[p]] up to adjacency[adjacencyStart[p + 1]],
+    // each as edge * 2 + (0 if p plays its rows, 1 if its columns); null until needed after a change
+    private int[] adjacencyStart;
+    private int[] adjacency;
+
+    /** Creates a game with no edges where player (i + 1) has numStrategies[i] strategies. */
+    public PolymatrixGame(int[] numStrategies) {
+        if (numStrategies.length < 1) {
+            throw new IllegalArgumentException("A game needs at least one player");
+        }
+        for (int n : numStrategies) {
+            if (n <= 0) {
+                throw new IllegalArgumentException("Every player needs at least one strategy");
+            }
+            maxStrategies = Math.max(maxStrategies, n);
+        }
+        numPlayers = numStrategies.length;
+        this.numStrategies = numStrategies.clone();
+    }
+
+    /**
+     * Adds an edge where player1 picks the game's row and player2 its
+     * column; player1 gets the game's P1 payoffs and player2 its P2
+     * payoffs. The game is used directly, not copied.
+     */
+    public void addEdge(int player1, int player2, BimatrixGame game) {
+        if (player1 < 1 || player1 > numPlayers || player2 < 1 || player2 > numPlayers || player1 == player2) {
+            throw new IllegalArgumentException("An edge needs two different players");
+        }
+        if (game.getNumRows() != numStrategies[player1 - 1] || game.getNumCols() != numStrategies[player2 - 1]) {
+            throw new IllegalArgumentException("The edge's game must be " + numStrategies[player1 - 1] + "x"
+                    + numStrategies[player2 - 1]);
+        }
+        if (numEdges == edgeGames.length) {
+            int capacity = numEdges * 2;
+            edgeFirst = Arrays.copyOf(edgeFirst, capacity);
+            edgeSecond = Arrays.copyOf(edgeSecond, capacity);
+            edgeGames = Arrays.copyOf(edgeGames, capacity);
+        }
+        edgeFirst[numEdges] = player1 - 1;
+        edgeSecond[numEdges] = player2 - 1;
+        edgeGames[numEdges] = game;
+        numEdges++;
+        adjacency = null;
+    }
+
+    /** Builds the adjacency list with a counting sort of the edge endpoints. */
+    private void buildAdjacency() {
+        int[] start = new int[numPlayers + 1];
+        for (int e = 0; e < numEdges; e++) {
+            start[edgeFirst[e] + 1]++;
+            start[edgeSecond[e] + 1]++;
+        }
+        for (int p = 0; p < numPlayers; p++) {
+            start[p + 1] += start[p];
+        }
+        int[] next = Arrays.copyOf(start, numPlayers);
+        int[] entries = new int[2 * numEdges];
+        for (int e = 0; e < numEdges; e++) {
+            entries[next[edgeFirst[e]]++] = e * 2;
+            entries[next[edgeSecond[e]]++] = e * 2 + 1;
+        }
+        adjacencyStart = start;
+        adjacency = entries;
+    }
+
+    private void ensureAdjacency() {
+        if (adjacency == null) {
+            buildAdjacency();
+        }
+    }
+
+    public int getNumPlayers() {
+        return numPlayers;
+    }
+
+    /** Number of strategies of the given player. */
+    public int getNumStrategies(int player) {
+        return numStrategies[player - 1];
+    }
+
+    public int getNumEdges() {
+        return numEdges;
+    }
+
+    /** Number of edges the given player is on. */
+    public int getDegree(int player) {
+        ensureAdjacency();
+        return adjacencyStart[player] - adjacencyStart[player - 1];
+    }
+
+    /**
+     * The given player's payoff when player (i + 1) plays profile[i], summed
+     * over the player's edges.
+     */
+    public long getPayoff(int player, int[] profile) {
+        ensureAdjacency();
+        int p = player - 1;
+        return payoff(p, profile[p] - 1, profile, 1);
+    }
+
+    /**
+     * Payoff of player p (from 0) playing strategy s (from 0) against the
+     * neighbors' strategies in profile, which count from base.
+     */
+    private long payoff(int p, int s, int[] profile, int base) {
+        long total = 0;
+        for (int i = adjacencyStart[p]; i < adjacencyStart[p + 1]; i++) {
+            int entry = adjacency[i];
+            int e = entry >>> 1;
+            BimatrixGame game = edgeGames[e];
+            if ((entry & 1) == 0) {
+                total += game.getP1Payoff(s + 1, profile[edgeSecond[e]] - base + 1);
+            } else {
+                total += game.getP2Payoff(profile[edgeFirst[e]] - base + 1, s + 1);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Best response (from 0) of player p to the neighbors' strategies in
+     * profile, which count from base: their current strategy if it is one
+     * of the best, so ties never make anyone switch, otherwise the first
+     * best. totals is scratch space with room for maxStrategies entries.
+     */
+    private int bestResponse(int p, int[] profile, int base, long[] totals) {
+        int n = numStrategies[p];
+        Arrays.fill(totals, 0, n, 0);
+        for (int i = adjacencyStart[p]; i < adjacencyStart[p + 1]; i++) {
+            int entry = adjacency[i];
+            int e = entry >>> 1;
+            BimatrixGame game = edgeGames[e];
+            if ((entry & 1) == 0) {
+                int col = profile[edgeSecond[e]] - base + 1;
+                for (int s = 0; s < n; s++) {
+                    totals[s] += game.getP1Payoff(s + 1, col);
+                }
+            } else {
+                int row = profile[edgeFirst[e]] - base + 1;
+                for (int s = 0; s < n; s++) {
+                    totals[s] += game.getP2Payoff(row, s + 1);
+                }
+            }
+        }
+        int current = profile[p] - base;
+        int best = current;
+        for (int s = 0; s < n; s++) {
+            if (totals[s] > totals[best]) {
+                best = s;
+            }
+        }
+        if (totals[best] == totals[current]) {
+            return current;
+        }
+        for (int s = 0; s < best; s++) {
+            if (totals[s] == totals[best]) {
+                return s;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the given player's best response to the others playing their
+     * strategies in profile: the player's own strategy in profile if it is
+     * already a best response, otherwise the first best one. Only looks at
+     * the player's edges. Returns null if the player or profile is invalid.
+     */
+    public Integer findBestResponse(int player, int[] profile) {
+        if (player < 1 || player > numPlayers || !isValidProfile(profile)) {
+            return null;
+        }
+        ensureAdjacency();
+        return bestResponse(player - 1, profile, 1, new long[maxStrategies]) + 1;
+    }
+
+    /** Returns whether every player is best responding in profile. */
+    public boolean isPureNashEquilibrium(int[] profile) {
+        if (!isValidProfile(profile)) {
+            return false;
+        }
+        ensureAdjacency();
+        long[] totals = new long[maxStrategies];
+        for (int p = 0; p < numPlayers; p++) {
+            if (bestResponse(p, profile, 1, totals) != profile[p] - 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isValidProfile(int[] profile) {
+        if (profile.length != numPlayers) {
+            return false;
+        }
+        for (int p = 0; p < numPlayers; p++) {
+            if (profile[p] < 1 || profile[p] > numStrategies[p]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Looks for a pure strategy Nash Equilibrium by best-response local
+     * search from start (or from everyone playing strategy 1 if start is
+     * null), checking at most maxSteps players. Each step checks one queued
+     * player, at a cost proportional to their number of edges times their
+     * number of strategies. Returns the equilibrium found, or null if the
+     * search did not settle within maxSteps.
+     */
+    public int[] findPureNashEquilibrium(int[] start, long maxSteps) {
+        if (start != null && !isValidProfile(start)) {
+            throw new IllegalArgumentException("Invalid starting profile");
+        }
+        ensureAdjacency();
+        // strategies count from 0 while searching
+        int[] profile = new int[numPlayers];
+        if (start != null) {
+            for (int p = 0; p < numPlayers; p++) {
+                profile[p] = start[p] - 1;
+            }
+        }
+        long[] totals = new long[maxStrategies];
+
+        // ring buffer of players to check, each queued at most once
+        int[] queue = new int[numPlayers];
+        long[] queued = new long[(numPlayers + 63) >>> 6];
+        for (int p = 0; p < numPlayers; p++) {
+            queue[p] = p;
+            queued[p >>> 6] |= 1L << p;
+        }
+        int head = 0;
+        int size = numPlayers;
+
+        for (long step = 0; size > 0; step++) {
+            if (step >= maxSteps) {
+                return null;
+            }
+            int p = queue[head];
+            head = head + 1 == numPlayers ? 0 : head + 1;
+            size--;
+            queued[p >>> 6] &= ~(1L << p);
+
+            int best = bestResponse(p, profile, 0, totals);
+            if (best == profile[p]) {
+                continue;
+            }
+            profile[p] = best;
+            // only the neighbors' payoffs changed, so only they can stop best responding
+            for (int i = adjacencyStart[p]; i < adjacencyStart[p + 1]; i++) {
+                int e = adjacency[i] >>> 1;
+                int q = edgeFirst[e] == p ? edgeSecond[e] : edgeFirst[e];
+                if ((queued[q >>> 6] & (1L << q)) == 0) {
+                    queued[q >>> 6] |= 1L << q;
+                    int tail = head + size;
+                    queue[tail >= numPlayers ? tail - numPlayers : tail] = q;
+                    size++;
+                }
+            }
+        }
+        for (int p = 0; p < numPlayers; p++) {
+            profile[p]++;
+        }
+        return profile;
+    }
+
+    /**
+     * Writes the game out as a dense NPlayerGame, with an entry for every
+     * strategy profile. Only feasible for small games; useful for checking
+     * results against an exhaustive search.
+     */
+    public NPlayerGame toNPlayerGame() {
+        ensureAdjacency();
+        NPlayerGame dense = new NPlayerGame(numStrategies);
+        for (int i = 0; i < dense.getNumProfiles(); i++) {
+            int[] profile = dense.getStrategies(i);
+            for (int p = 0; p < numPlayers; p++) {
+                dense.setPayoff(p + 1, profile, (int) payoff(p, profile[p] - 1, profile, 1));
+            }
+        }
+        return dense;
+    }
+}
@@ -0,0 +1,303 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A game with its dominated moves removed, along with the mapping back to
+ * the original game's move numbers.
+ *
+ * Moves are removed one round at a time: P1's rows that some other
+ * surviving row beats against every surviving column, then P2's columns that
+ * some other surviving column beats against every surviving row, repeating
+ * until neither player loses a move. Which moves survive is kept as a bitset
+ * per player, and every dominance check walks only the set bits.
+ *
+ * Removing strictly dominated moves never changes the set of Nash
+ * Equilibria, so the solvers can run on the (often much smaller) reduced
+ * game and have their answers mapped back. Weakly dominated moves (no
+ * better anywhere and worse somewhere) can optionally go too, which shrinks
+ * the game further but can lose equilibria, and which ones are lost depends
+ * on the order moves are removed in.
+ */
+public class ReducedGame {
+    private final BimatrixGame original;
+    private final PayoffMatrix reduced;
+    // bit r of rowMask is set if original row r (from 0) survived, likewise for columns
+    private final long[] rowMask;
+    private final long[] colMask;
+    // reduced 0-indexed move -> original 0-indexed move
+    private final int[] rowMap;
+    private final int[] colMap;
+    private final int rounds;
+
+    /** Removes the strictly dominated moves of the game. */
+    public ReducedGame(BimatrixGame game) {
+        this(game, false);
+    }
+
+    /**
+     * Removes the dominated moves of the game, including weakly dominated
+     * ones if eliminateWeak is set.
+     */
+    public ReducedGame(BimatrixGame game, boolean eliminateWeak) {
+        original = game;
+        int rows = game.getNumRows();
+        int cols = game.getNumCols();
+        int[] a = new int[rows * cols];
+        int[] b = new int[rows * cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                a[r * cols + c] = game.getP1Payoff(r + 1, c + 1);
+                b[r * cols + c] = game.getP2Payoff(r + 1, c + 1);
+            }
+        }
+        rowMask = fullMask(rows);
+        colMask = fullMask(cols);
+
+        // a player's moves can only become dominated after the other player loses one
+        int round = 0;
+        boolean checkRows = true;
+        boolean checkCols = true;
+        while (checkRows || checkCols) {
+            round++;
+            if (checkRows) {
+                checkRows = false;
+                checkCols |= eliminateRows(a, cols, eliminateWeak);
+            }
+            if (checkCols) {
+                checkCols = false;
+                checkRows |= eliminateCols(b, cols, eliminateWeak);
+            }
+        }
+        rounds = round;
+
+        rowMap = survivors(rowMask);
+        colMap = survivors(colMask);
+        int[] reducedA = new int[rowMap.length * colMap.length];
+        int[] reducedB = new int[rowMap.length * colMap.length];
+        for (int i = 0; i < rowMap.length; i++) {
+            int base = rowMap[i] * cols;
+            for (int j = 0; j < colMap.length; j++) {
+                reducedA[i * colMap.length + j] = a[base + colMap[j]];
+                reducedB[i * colMap.length + j] = b[base + colMap[j]];
+            }
+        }
+        reduced = new PayoffMatrix(rowMap.length, colMap.length, reducedA, reducedB);
+    }
+
+    private static long[] fullMask(int n) {
+        long[] mask = new long[(n + 63) >>> 6];
+        for (int i = 0; i < n; i++) {
+            mask[i >>> 6] |= 1L << i;
+        }
+        return mask;
+    }
+
+    private static int[] survivors(long[] mask) {
+        int count = 0;
+        for (long word : mask) {
+            count += Long.bitCount(word);
+        }
+        int[] moves = new int[count];
+        int i = 0;
+        for (int w = 0; w < mask.length; w++) {
+            long word = mask[w];
+            while (word != 0) {
+                moves[i++] = (w << 6) + Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+            }
+        }
+        return moves;
+    }
+
+    /**
+     * Removes every surviving row dominated by another surviving row for P1
+     * and returns whether any was removed. A removed row is cleared from the
+     * mask right away, so it no longer counts as dominating the rows after
+     * it. Identical rows never dominate each other, even with weak
+     * dominance, since that needs a strict improvement somewhere, so both
+     * stay.
+     */
+    private boolean eliminateRows(int[] a, int cols, boolean weak) {
+        int[] liveCols = survivors(colMask);
+        int[] liveRows = survivors(rowMask);
+        boolean changed = false;
+        for (int r : liveRows) {
+            int rBase = r * cols;
+            for (int s : liveRows) {
+                if (s == r || (rowMask[s >>> 6] & (1L << s)) == 0) continue;
+                if (dominates(a, s * cols, rBase, liveCols, weak)) {
+                    rowMask[r >>> 6] &= ~(1L << r);
+                    changed = true;
+                    break;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /** Same as eliminateRows for P2's columns. */
+    private boolean eliminateCols(int[] b, int cols, boolean weak) {
+        int[] liveRows = survivors(rowMask);
+        int[] liveCols = survivors(colMask);
+        // rows are walked with a stride of cols, so scale the offsets once up front
+        for (int i = 0; i < liveRows.length; i++) {
+            liveRows[i] *= cols;
+        }
+        boolean changed = false;
+        for (int c : liveCols) {
+            for (int d : liveCols) {
+                if (d == c || (colMask[d >>> 6] & (1L << d)) == 0) continue;
+                if (dominates(b, d, c, liveRows, weak)) {
+                    colMask[c >>> 6] &= ~(1L << c);
+                    changed = true;
+                    break;
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Whether the move at offset better dominates the move at offset worse,
+     * comparing payoffs[better + k] with payoffs[worse + k] for every offset
+     * k in others (the other player's surviving moves).
+     */
+    private static boolean dominates(int[] payoffs, int better, int worse, int[] others, boolean weak) {
+        boolean strictSomewhere = false;
+        for (int k : others) {
+            int x = payoffs[better + k];
+            int y = payoffs[worse + k];
+            if (x < y || (x == y && !weak)) {
+                return false;
+            }
+            if (x > y) {
+                strictSomewhere = true;
+            }
+        }
+        return strictSomewhere;
+    }
+
+    /** The reduced game, with its own moves numbered from 1. */
+    public PayoffMatrix getGame() {
+        return reduced;
+    }
+
+    /** The game the moves were removed from. */
+    public BimatrixGame getOriginal() {
+        return original;
+    }
+
+    /** Number of rounds of elimination it took until nothing more was dominated. */
+    public int getRounds() {
+        return rounds;
+    }
+
+    /** Whether the given row (from 1) of the original game survived. */
+    public boolean isRowKept(int row) {
+        int r = row - 1;
+        return (rowMask[r >>> 6] & (1L << r)) != 0;
+    }
+
+    /** Whether the given column (from 1) of the original game survived. */
+    public boolean isColKept(int col) {
+        int c = col - 1;
+        return (colMask[c >>> 6] & (1L << c)) != 0;
+    }
+
+    /** The original row number of the reduced game's given row, both counting from 1. */
+    public int getOriginalRow(int row) {
+        return rowMap[row - 1] + 1;
+    }
+
+    /** The original column number of the reduced game's given column, both counting from 1. */
+    public int getOriginalCol(int col) {
+        return colMap[col - 1] + 1;
+    }
+
+    /**
+     * The reduced game's row number for the given original row, or null if
+     * that row was removed.
+     */
+    public Integer getReducedRow(int row) {
+        return isRowKept(row) ? indexOf(rowMap, row - 1) + 1 : null;
+    }
+
+    /**
+     * The reduced game's column number for the given original column, or
+     * null if that column was removed.
+     */
+    public Integer getReducedCol(int col) {
+        return isColKept(col) ? indexOf(colMap, col - 1) + 1 : null;
+    }
+
+    private static int indexOf(int[] sorted, int move) {
+        return Arrays.binarySearch(sorted, move);
+    }
+
+    /**
+     * Writes the pure strategy Nash Equilibria of the reduced game into cells
+     * as cell codes of the original game (row * numCols + col, from 0), in
+     * row-major order, and returns how many there are. cells must hold at
+     * least as many entries as the reduced game has squares.
+     */
+    public int findPureNashEquilibria(int[] cells) {
+        int count = reduced.findPureNashEquilibria(cells);
+        int reducedCols = colMap.length;
+        int cols = original.getNumCols();
+        for (int i = 0; i < count; i++) {
+            cells[i] = rowMap[cells[i] / reducedCols] * cols + colMap[cells[i] % reducedCols];
+        }
+        return count;
+    }
+
+    /**
+     * Returns the same equilibria as the original game's
+     * findPureNashEquilibrium (as long as only strictly dominated moves were
+     * removed), found in the reduced game. Returns null if there are none.
+     */
+    public ArrayList<ArrayList<Integer>> findPureNashEquilibrium() {
+        int[] cells = new int[rowMap.length * colMap.length];
+        int count = findPureNashEquilibria(cells);
+        if (count == 0) {
+            return null;
+        }
+        int cols = original.getNumCols();
+        ArrayList<ArrayList<Integer>> equilibria = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ArrayList<Integer> square = new ArrayList<>(2);
+            square.add(cells[i] / cols + 1);
+            square.add(cells[i] % cols + 1);
+            equilibria.add(square);
+        }
+        return equilibria;
+    }
+
+    /**
+     * Turns a strategy profile of the reduced game into one of the original
+     * game, where removed moves are played with probability 0.
+     */
+    public StrategyProfile expand(StrategyProfile profile) {
+        if (profile == null) {
+            return null;
+        }
+        double[] x = new double[original.getNumRows()];
+        double[] y = new double[original.getNumCols()];
+        for (int i = 0; i < rowMap.length; i++) {
+            x[rowMap[i]] = profile.getP1Probability(i + 1);
+        }
+        for (int j = 0; j < colMap.length; j++) {
+            y[colMap[j]] = profile.getP2Probability(j + 1);
+        }
+        return new StrategyProfile(x, y, profile.getP1Payoff(), profile.getP2Payoff());
+    }
+
+    /** expand() applied to every profile in the list. */
+    public List<StrategyProfile> expandAll(List<StrategyProfile> profiles) {
+        List<StrategyProfile> expanded = new ArrayList<>(profiles.size());
+        for (StrategyProfile profile : profiles) {
+            expanded.add(expand(profile));
+        }
+        return expanded;
+    }
+}
@@ -0,0 +1,74 @@
+import java.util.Arrays;
+
+/**
+ * Regret matching: every iteration, each player mixes over their moves in
+ * proportion to how much more they would have gotten by always playing that
+ * move (their positive regret), or uniformly if no move has positive regret.
+ * The regrets come from the expected payoffs, so the solver is deterministic.
+ * The average strategies approach a Nash Equilibrium in zero-sum games, and
+ * the average play approaches a coarse correlated equilibrium in general.
+ * Each iteration takes time proportional to rows * cols.
+ */
+public class RegretMatchingSolver extends IterativeSolver {
+    // current mixed strategies and expected payoff of each move against the other's
+    private final double[] x;
+    private final double[] y;
+    private final double[] p1Values;
+    private final double[] p2Values;
+    // cumulative expected payoff of the strategies actually played; a move's
+    // regret is its cumulative payoff minus this
+    private double p1Realized;
+    private double p2Realized;
+
+    public RegretMatchingSolver(BimatrixGame matrix) {
+        super(matrix);
+        x = new double[rows];
+        y = new double[cols];
+        p1Values = new double[rows];
+        p2Values = new double[cols];
+    }
+
+    @Override
+    protected void iterate() {
+        matchRegrets(p1PayoffSum, p1Realized, x);
+        matchRegrets(p2PayoffSum, p2Realized, y);
+
+        Arrays.fill(p2Values, 0);
+        for (int r = 0; r < rows; r++) {
+            int base = r * cols;
+            double value = 0;
+            for (int c = 0; c < cols; c++) {
+                value += p1Payoffs[base + c] * y[c];
+            }
+            p1Values[r] = value;
+            if (x[r] == 0) continue;
+            for (int c = 0; c < cols; c++) {
+                p2Values[c] += x[r] * p2Payoffs[base + c];
+            }
+        }
+
+        for (int r = 0; r < rows; r++) {
+            p1Realized += x[r] * p1Values[r];
+            p1PayoffSum[r] += p1Values[r];
+            p1StrategySum[r] += x[r];
+        }
+        for (int c = 0; c < cols; c++) {
+            p2Realized += y[c] * p2Values[c];
+            p2PayoffSum[c] += p2Values[c];
+            p2StrategySum[c] += y[c];
+        }
+        totalWeight++;
+    }
+
+    /** Sets strategy to the positive regrets, normalized, or to uniform if none are positive. */
+    private static void matchRegrets(double[] payoffSum, double realized, double[] strategy) {
+        double total = 0;
+        for (int i = 0; i < strategy.length; i++) {
+            strategy[i] = Math.max(0, payoffSum[i] - realized);
+            total += strategy[i];
+        }
+        for (int i = 0; i < strategy.length; i++) {
+            strategy[i] = total > 0 ? strategy[i] / total : 1.0 / strategy.length;
+        }
+    }
+}
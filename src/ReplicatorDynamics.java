@@ -0,0 +1,298 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Evolves a population of P1s and a population of P2s under the replicator
+ * dynamics. p1Shares[i] is the fraction of the P1 population playing Move
+ * (i + 1); each step, a move's share grows in proportion to how much better
+ * than the population average it does against the other population:
+ *
+ *     x_i += stepSize * x_i * ((A y)_i - x . A y)
+ *
+ * and the same for P2 with B^T x. The payoffs are rescaled into [0, 1] first
+ * (which keeps the rest points the same), so stepSize does not have to depend
+ * on how large the payoffs are.
+ *
+ * The two matrix-vector products dominate each step. They use VectorKernel,
+ * from the vector module, when it is on the class path and the JVM runs with
+ * --add-modules jdk.incubator.vector, and a plain loop otherwise.
+ * Trajectories are reported a window at a time, as averages over the window,
+ * so runs of any length use memory proportional to the number of moves.
+ */
+public class ReplicatorDynamics {
+    private static final Kernel SCALAR = ReplicatorDynamics::multiply;
+    private static final Kernel KERNEL = loadKernel();
+    // shares below this count as extinct; left alone they decay into subnormal
+    // doubles, which are many times slower to multiply
+    private static final double MIN_SHARE = 1e-200;
+
+    private final int rows;
+    private final int cols;
+    // rescaled payoffs: a is P1's, row-major; bt is P2's transposed so each of P2's moves is a row
+    private final double[] a;
+    private final double[] bt;
+    // undo the rescaling when reporting payoffs
+    private final double p1Scale;
+    private final double p1Offset;
+    private final double p2Scale;
+    private final double p2Offset;
+    private final double stepSize;
+
+    private final double[] p1Shares;
+    private final double[] p2Shares;
+    // fitness of each move against the other population, refreshed every step
+    private final double[] p1Fitness;
+    private final double[] p2Fitness;
+    private long steps;
+
+    /** Listener for the averages of each window of steps. */
+    public interface WindowListener {
+        /**
+         * Called after each window with the average shares and expected payoffs
+         * over it. The arrays are reused for the next window, so copy them to
+         * keep them.
+         */
+        void onWindow(long endStep, double[] p1Shares, double[] p2Shares, double p1Payoff, double p2Payoff);
+    }
+
+    /** A matrix-vector product, as done by multiply. */
+    interface Kernel {
+        void multiply(double[] matrix, int m, int n, double[] v, double[] rowShares, double[] out);
+    }
+
+    /** Starts both populations evenly spread over their moves. */
+    public ReplicatorDynamics(BimatrixGame matrix, double stepSize) {
+        if (!(stepSize > 0)) {
+            throw new IllegalArgumentException("Step size must be positive");
+        }
+        rows = matrix.getNumRows();
+        cols = matrix.getNumCols();
+        this.stepSize = stepSize;
+        int minA = Integer.MAX_VALUE;
+        int maxA = Integer.MIN_VALUE;
+        int minB = Integer.MAX_VALUE;
+        int maxB = Integer.MIN_VALUE;
+        for (int r = 1; r <= rows; r++) {
+            for (int c = 1; c <= cols; c++) {
+                minA = Math.min(minA, matrix.getP1Payoff(r, c));
+                maxA = Math.max(maxA, matrix.getP1Payoff(r, c));
+                minB = Math.min(minB, matrix.getP2Payoff(r, c));
+                maxB = Math.max(maxB, matrix.getP2Payoff(r, c));
+            }
+        }
+        p1Scale = maxA > minA ? (double) maxA - minA : 1;
+        p2Scale = maxB > minB ? (double) maxB - minB : 1;
+        p1Offset = minA;
+        p2Offset = minB;
+
+        a = new double[rows * cols];
+        bt = new double[cols * rows];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                a[r * cols + c] = (matrix.getP1Payoff(r + 1, c + 1) - p1Offset) / p1Scale;
+                bt[c * rows + r] = (matrix.getP2Payoff(r + 1, c + 1) - p2Offset) / p2Scale;
+            }
+        }
+        p1Shares = new double[rows];
+        p2Shares = new double[cols];
+        p1Fitness = new double[rows];
+        p2Fitness = new double[cols];
+        Arrays.fill(p1Shares, 1.0 / rows);
+        Arrays.fill(p2Shares, 1.0 / cols);
+    }
+
+    /** Returns whether the matrix-vector products run on the Vector API. */
+    public static boolean isVectorized() {
+        return KERNEL != SCALAR;
+    }
+
+    /**
+     * Sets the starting shares of each population (copied and normalized to
+     * sum to 1). A move with share 0 never comes back, so an interior start
+     * keeps every move in play.
+     */
+    public void setShares(double[] p1Shares, double[] p2Shares) {
+        if (p1Shares.length != rows || p2Shares.length != cols) {
+            throw new IllegalArgumentException("Need one share per move");
+        }
+        System.arraycopy(p1Shares, 0, this.p1Shares, 0, rows);
+        System.arraycopy(p2Shares, 0, this.p2Shares, 0, cols);
+        if (!normalize(this.p1Shares) || !normalize(this.p2Shares)) {
+            throw new IllegalArgumentException("Shares must be nonnegative and not all 0");
+        }
+        steps = 0;
+    }
+
+    /** Share of the P1 population playing the given move (counting from 1). */
+    public double getP1Share(int move) {
+        return p1Shares[move - 1];
+    }
+
+    /** Share of the P2 population playing the given move (counting from 1). */
+    public double getP2Share(int move) {
+        return p2Shares[move - 1];
+    }
+
+    /** Number of steps taken since the start. */
+    public long getSteps() {
+        return steps;
+    }
+
+    /** Takes one step of the dynamics. */
+    public void step() {
+        updateFitness();
+        advance();
+    }
+
+    /**
+     * Takes the given number of steps, reporting the average shares and
+     * payoffs of every window of windowSize steps (and of the last, shorter
+     * window if there is one) to the listener.
+     */
+    public void run(long numSteps, int windowSize, WindowListener listener) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be positive");
+        }
+        double[] p1Sum = new double[rows];
+        double[] p2Sum = new double[cols];
+        double p1PayoffSum = 0;
+        double p2PayoffSum = 0;
+        int inWindow = 0;
+        for (long s = 0; s < numSteps; s++) {
+            updateFitness();
+            for (int i = 0; i < rows; i++) {
+                p1Sum[i] += p1Shares[i];
+            }
+            for (int j = 0; j < cols; j++) {
+                p2Sum[j] += p2Shares[j];
+            }
+            p1PayoffSum += dot(p1Shares, p1Fitness);
+            p2PayoffSum += dot(p2Shares, p2Fitness);
+            advance();
+
+            if (++inWindow == windowSize || s == numSteps - 1) {
+                for (int i = 0; i < rows; i++) {
+                    p1Sum[i] /= inWindow;
+                }
+                for (int j = 0; j < cols; j++) {
+                    p2Sum[j] /= inWindow;
+                }
+                listener.onWindow(steps, p1Sum, p2Sum, p1PayoffSum / inWindow * p1Scale + p1Offset,
+                        p2PayoffSum / inWindow * p2Scale + p2Offset);
+                Arrays.fill(p1Sum, 0);
+                Arrays.fill(p2Sum, 0);
+                p1PayoffSum = 0;
+                p2PayoffSum = 0;
+                inWindow = 0;
+            }
+        }
+    }
+
+    /**
+     * Fitness of every move against the other population's current shares.
+     * Extinct moves never come back, so their fitness is skipped.
+     */
+    private void updateFitness() {
+        KERNEL.multiply(a, rows, cols, p2Shares, p1Shares, p1Fitness);
+        KERNEL.multiply(bt, cols, rows, p1Shares, p2Shares, p2Fitness);
+    }
+
+    /** Moves the shares along the fitness computed by updateFitness. */
+    private void advance() {
+        grow(p1Shares, p1Fitness);
+        grow(p2Shares, p2Fitness);
+        steps++;
+    }
+
+    private void grow(double[] shares, double[] fitness) {
+        double average = dot(shares, fitness);
+        for (int i = 0; i < shares.length; i++) {
+            // an Euler step can overshoot below 0 when the step size is large
+            double share = shares[i] + stepSize * shares[i] * (fitness[i] - average);
+            shares[i] = share < MIN_SHARE ? 0 : share;
+        }
+        normalize(shares);
+    }
+
+    private static double dot(double[] u, double[] v) {
+        double total = 0;
+        for (int i = 0; i < u.length; i++) {
+            total += u[i] * v[i];
+        }
+        return total;
+    }
+
+    private static boolean normalize(double[] shares) {
+        double sum = 0;
+        for (double share : shares) {
+            if (share < 0) return false;
+            sum += share;
+        }
+        if (sum == 0) return false;
+        for (int i = 0; i < shares.length; i++) {
+            shares[i] /= sum;
+        }
+        return true;
+    }
+
+    /**
+     * VectorKernel if it was built and the Vector API is available, otherwise
+     * multiply. It is looked up by name so this class builds without it.
+     */
+    private static Kernel loadKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                return (Kernel) Class.forName("VectorKernel").getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // the vector module was not built; use the plain loop
+            }
+        }
+        return SCALAR;
+    }
+
+    /** Scalar fallback for VectorKernel.multiply. */
+    static void multiply(double[] matrix, int m, int n, double[] v, double[] rowShares, double[] out) {
+        for (int i = 0; i < m; i++) {
+            if (rowShares[i] == 0) {
+                out[i] = 0;
+                continue;
+            }
+            int base = i * n;
+            double total = 0;
+            for (int j = 0; j < n; j++) {
+                total += matrix[base + j] * v[j];
+            }
+            out[i] = total;
+        }
+    }
+
+    /**
+     * Usage: java --add-modules jdk.incubator.vector ReplicatorDynamics moves steps [window seed].
+     * Runs a random moves x moves game and prints the averages of each window.
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: java ReplicatorDynamics moves steps [window seed]");
+            return;
+        }
+        int moves = Integer.parseInt(args[0]);
+        long numSteps = Long.parseLong(args[1]);
+        int window = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1;
+
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] p1Payoffs = new int[moves * moves];
+        int[] p2Payoffs = new int[moves * moves];
+        for (int i = 0; i < p1Payoffs.length; i++) {
+            p1Payoffs[i] = random.nextInt(1000);
+            p2Payoffs[i] = random.nextInt(1000);
+        }
+        ReplicatorDynamics dynamics = new ReplicatorDynamics(
+                new PayoffMatrix(moves, moves, p1Payoffs, p2Payoffs), 0.1);
+        System.out.println(isVectorized() ? "Using the Vector API" : "Using the scalar kernel");
+        long start = System.nanoTime();
+        dynamics.run(numSteps, window, (step, p1, p2, p1Payoff, p2Payoff) ->
+                System.out.printf("Step %d: average payoffs (%.4f, %.4f)%n", step, p1Payoff, p2Payoff));
+        System.out.printf("Took %.2f s%n", (System.nanoTime() - start) / 1e9);
+    }
+}
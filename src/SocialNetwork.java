@@ -0,0 +1,165 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * An undirected friendship graph stored in compressed sparse row form: the
+ * friends of person u are neighbors[offsets[u]] up to neighbors[offsets[u + 1]].
+ * Every friendship is listed at both ends, and people are numbered from 0.
+ */
+public class SocialNetwork {
+    private final int numPeople;
+    private final int[] offsets;
+    private final int[] neighbors;
+
+    /**
+     * Wraps the given arrays without copying them. offsets must have one more
+     * entry than there are people, and every friendship must be listed from
+     * both ends.
+     */
+    public SocialNetwork(int[] offsets, int[] neighbors) {
+        if (offsets.length == 0 || offsets[0] != 0 || offsets[offsets.length - 1] != neighbors.length) {
+            throw new IllegalArgumentException("Offsets must start at 0 and end at the number of neighbors");
+        }
+        numPeople = offsets.length - 1;
+        for (int u = 0; u < numPeople; u++) {
+            if (offsets[u + 1] < offsets[u]) {
+                throw new IllegalArgumentException("Offsets must not decrease");
+            }
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                if (neighbors[i] < 0 || neighbors[i] >= numPeople || neighbors[i] == u) {
+                    throw new IllegalArgumentException("Invalid friend " + neighbors[i] + " of person " + u);
+                }
+            }
+        }
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+    }
+
+    /**
+     * Builds a random network where each of numPeople * averageFriends / 2
+     * friendships joins two people picked uniformly at random. Repeated
+     * friendships and people befriending themselves are dropped, so the
+     * actual average is a little lower on small networks.
+     */
+    public static SocialNetwork random(int numPeople, double averageFriends, long seed) {
+        if (numPeople <= 0 || averageFriends < 0) {
+            throw new IllegalArgumentException("Need at least one person and a nonnegative number of friends");
+        }
+        long numEdges = (long) (numPeople * averageFriends / 2);
+        if (numEdges * 2 > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many friendships for one network");
+        }
+
+        // two passes over the same random stream: count everyone's friends, then place them,
+        // so the edges never have to be held in a separate list
+        int[] offsets = new int[numPeople + 1];
+        SplittableRandom random = new SplittableRandom(seed);
+        for (long e = 0; e < numEdges; e++) {
+            int u = random.nextInt(numPeople);
+            int v = random.nextInt(numPeople);
+            if (u != v) {
+                offsets[u + 1]++;
+                offsets[v + 1]++;
+            }
+        }
+        for (int u = 0; u < numPeople; u++) {
+            offsets[u + 1] += offsets[u];
+        }
+        int[] neighbors = new int[offsets[numPeople]];
+        int[] fill = Arrays.copyOf(offsets, numPeople);
+        random = new SplittableRandom(seed);
+        for (long e = 0; e < numEdges; e++) {
+            int u = random.nextInt(numPeople);
+            int v = random.nextInt(numPeople);
+            if (u != v) {
+                neighbors[fill[u]++] = v;
+                neighbors[fill[v]++] = u;
+            }
+        }
+
+        // sort each person's friends and squeeze out repeats in place
+        int write = 0;
+        int start = 0;
+        for (int u = 0; u < numPeople; u++) {
+            int end = offsets[u + 1];
+            Arrays.sort(neighbors, start, end);
+            offsets[u] = write;
+            for (int i = start; i < end; i++) {
+                if (i == start || neighbors[i] != neighbors[i - 1]) {
+                    neighbors[write++] = neighbors[i];
+                }
+            }
+            start = end;
+        }
+        offsets[numPeople] = write;
+        return new SocialNetwork(offsets, Arrays.copyOf(neighbors, write));
+    }
+
+    /** Number of people in the network. */
+    public int getNumPeople() {
+        return numPeople;
+    }
+
+    /** Number of friendships, each counted once. */
+    public long getNumFriendships() {
+        return neighbors.length / 2;
+    }
+
+    /** Number of friends the given person has. */
+    public int getNumFriends(int person) {
+        return offsets[person + 1] - offsets[person];
+    }
+
+    int[] offsets() {
+        return offsets;
+    }
+
+    int[] neighbors() {
+        return neighbors;
+    }
+
+    /**
+     * Splits the people into groups where no two people in the same group are
+     * friends, using greedy coloring. Returns the groups in CSR form: group g
+     * is members[result[g]] up to members[result[g + 1]], and members must
+     * have room for every person.
+     */
+    int[] independentGroups(int[] members) {
+        int[] color = new int[numPeople];
+        // takenBy[c] == u + 1 while some friend of u already has color c
+        int[] takenBy = new int[16];
+        int numColors = 0;
+        for (int u = 0; u < numPeople; u++) {
+            for (int i = offsets[u]; i < offsets[u + 1]; i++) {
+                int v = neighbors[i];
+                if (v < u) {
+                    takenBy[color[v]] = u + 1;
+                }
+            }
+            int c = 0;
+            while (c < numColors && takenBy[c] == u + 1) {
+                c++;
+            }
+            if (c == numColors) {
+                numColors++;
+                if (takenBy.length == numColors) {
+                    takenBy = Arrays.copyOf(takenBy, numColors * 2);
+                }
+            }
+            color[u] = c;
+        }
+
+        int[] groupStart = new int[numColors + 1];
+        for (int u = 0; u < numPeople; u++) {
+            groupStart[color[u] + 1]++;
+        }
+        for (int c = 0; c < numColors; c++) {
+            groupStart[c + 1] += groupStart[c];
+        }
+        int[] fill = Arrays.copyOf(groupStart, numColors);
+        for (int u = 0; u < numPeople; u++) {
+            members[fill[color[u]]++] = u;
+        }
+        return groupStart;
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * A mixed strategy for each player along with the expected payoff each
+ * player gets when both play them. p1Strategy[i] is the probability that
+ * P1 plays Move (i + 1) and p2Strategy[j] is the probability that P2 plays
+ * Move (j + 1).
+ */
+public class StrategyProfile {
+    private final double[] p1Strategy;
+    private final double[] p2Strategy;
+    private final double p1Payoff;
+    private final double p2Payoff;
+
+    /** Wraps the given arrays directly; they are not copied. */
+    public StrategyProfile(double[] p1Strategy, double[] p2Strategy, double p1Payoff, double p2Payoff) {
+        this.p1Strategy = p1Strategy;
+        this.p2Strategy = p2Strategy;
+        this.p1Payoff = p1Payoff;
+        this.p2Payoff = p2Payoff;
+    }
+
+    /** Probability that P1 plays the given move (counting from 1). */
+    public double getP1Probability(int move) {
+        return p1Strategy[move - 1];
+    }
+
+    /** Probability that P2 plays the given move (counting from 1). */
+    public double getP2Probability(int move) {
+        return p2Strategy[move - 1];
+    }
+
+    /** Getter for P1's mixed strategy. */
+    public double[] getP1Strategy() {
+        return p1Strategy;
+    }
+
+    /** Getter for P2's mixed strategy. */
+    public double[] getP2Strategy() {
+        return p2Strategy;
+    }
+
+    /** Getter for P1's expected payoff. */
+    public double getP1Payoff() {
+        return p1Payoff;
+    }
+
+    /** Getter for P2's expected payoff. */
+    public double getP2Payoff() {
+        return p2Payoff;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("P1: (");
+        appendStrategy(sb, p1Strategy);
+        sb.append("), P2: (");
+        appendStrategy(sb, p2Strategy);
+        sb.append("), payoffs: (").append(p1Payoff).append(", ").append(p2Payoff).append(")");
+        return sb.toString();
+    }
+
+    private static void appendStrategy(StringBuilder sb, double[] strategy) {
+        for (int i = 0; i < strategy.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(String.format("%.4f", strategy[i]));
+        }
+    }
+}
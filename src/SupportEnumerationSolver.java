@@ -0,0 +1,362 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds every Nash Equilibrium of a nondegenerate game by support
+ * enumeration. For each pair of equal-size supports (a set of rows I for P1
+ * and a set of columns J for P2) it solves the indifference equations that
+ * make the other player indifferent across the support, and keeps the pair
+ * when both solutions are probabilities and no move outside a support does
+ * better. Support pairs where one side contains a move that is strictly
+ * dominated against the other side are skipped without solving anything.
+ * Row supports of each size are split across a fork-join pool.
+ */
+public class SupportEnumerationSolver {
+    // limit imposed by storing supports as int bitmasks
+    public static final int MAX_MOVES = 31;
+    // the number of support pairs grows about 4x per move, so past this many moves per player
+    // enumerating every equilibrium takes too long for interactive use and callers find just one
+    public static final int MAX_ENUMERATED_MOVES = 10;
+    private static final double EPS = 1e-9;
+    // rough number of support pairs a task checks before it stops splitting
+    private static final long LEAF_WORK = 2048;
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Whether the game is small enough (at most MAX_ENUMERATED_MOVES moves
+     * per player) to list every equilibrium of.
+     */
+    public static boolean canEnumerate(BimatrixGame game) {
+        return game.getNumRows() <= MAX_ENUMERATED_MOVES && game.getNumCols() <= MAX_ENUMERATED_MOVES;
+    }
+
+    /** Creates a solver that runs on the common fork-join pool. */
+    public SupportEnumerationSolver() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /** Creates a solver that runs on the given pool. */
+    public SupportEnumerationSolver(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Returns all equilibria of the game, ordered by support size. Games with
+     * more than MAX_MOVES moves for either player are rejected.
+     */
+    public List<StrategyProfile> solve(BimatrixGame matrix) {
+        int rows = matrix.getNumRows();
+        int cols = matrix.getNumCols();
+        if (rows > MAX_MOVES || cols > MAX_MOVES) {
+            throw new IllegalArgumentException("Support enumeration handles at most "
+                    + MAX_MOVES + " moves per player");
+        }
+        double[] a = new double[rows * cols];
+        double[] b = new double[rows * cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                a[r * cols + c] = matrix.getP1Payoff(r + 1, c + 1);
+                b[r * cols + c] = matrix.getP2Payoff(r + 1, c + 1);
+            }
+        }
+
+        List<StrategyProfile> equilibria = new ArrayList<>();
+        for (int k = 1; k <= Math.min(rows, cols); k++) {
+            int[] rowSupports = subsetsOfSize(rows, k);
+            int[] colSupports = subsetsOfSize(cols, k);
+            int[] usefulRows = new int[colSupports.length];
+            for (int s = 0; s < colSupports.length; s++) {
+                usefulRows[s] = undominatedRows(a, rows, cols, colSupports[s]);
+            }
+            SupportTask task = new SupportTask(a, b, rows, cols, k, rowSupports, colSupports,
+                    usefulRows, 0, rowSupports.length);
+            equilibria.addAll(pool.invoke(task));
+        }
+        return equilibria;
+    }
+
+    /** Lists every n-bit mask with exactly k bits set, in increasing order. */
+    static int[] subsetsOfSize(int n, int k) {
+        int[] subsets = new int[binomial(n, k)];
+        long mask = (1L << k) - 1;
+        long limit = 1L << n;
+        int i = 0;
+        // Gosper's hack steps to the next larger mask with the same bit count
+        while (mask < limit) {
+            subsets[i++] = (int) mask;
+            long lowest = mask & -mask;
+            long ripple = mask + lowest;
+            mask = (((ripple ^ mask) >>> 2) / lowest) | ripple;
+        }
+        return subsets;
+    }
+
+    /**
+     * Returns the mask of rows that are not strictly dominated by another row
+     * when P2 is restricted to the columns in colMask. A dominated row can
+     * never be part of P1's support against any mix over those columns.
+     */
+    private static int undominatedRows(double[] a, int rows, int cols, int colMask) {
+        int useful = 0;
+        for (int r = 0; r < rows; r++) {
+            boolean dominated = false;
+            for (int other = 0; other < rows && !dominated; other++) {
+                if (other == r) continue;
+                dominated = true;
+                for (int m = colMask; m != 0; m &= m - 1) {
+                    int c = Integer.numberOfTrailingZeros(m);
+                    if (a[other * cols + c] <= a[r * cols + c]) {
+                        dominated = false;
+                        break;
+                    }
+                }
+            }
+            if (!dominated) useful |= 1 << r;
+        }
+        return useful;
+    }
+
+    /** Same as undominatedRows but for P2's columns against P1's rows in rowMask. */
+    private static int undominatedCols(double[] b, int rows, int cols, int rowMask) {
+        int useful = 0;
+        for (int c = 0; c < cols; c++) {
+            boolean dominated = false;
+            for (int other = 0; other < cols && !dominated; other++) {
+                if (other == c) continue;
+                dominated = true;
+                for (int m = rowMask; m != 0; m &= m - 1) {
+                    int r = Integer.numberOfTrailingZeros(m);
+                    if (b[r * cols + other] <= b[r * cols + c]) {
+                        dominated = false;
+                        break;
+                    }
+                }
+            }
+            if (!dominated) useful |= 1 << c;
+        }
+        return useful;
+    }
+
+    private static int binomial(int n, int k) {
+        long result = 1;
+        for (int i = 1; i <= k; i++) {
+            result = result * (n - k + i) / i;
+        }
+        return (int) result;
+    }
+
+    /**
+     * Solves the n x n system stored row-major in the first n rows of sys,
+     * each row holding n coefficients followed by the right-hand side, using
+     * Gaussian elimination with partial pivoting. The solution is written to
+     * out. Returns false if the system is singular.
+     */
+    static boolean solveInPlace(double[] sys, int n, double[] out) {
+        int width = n + 1;
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            double best = Math.abs(sys[col * width + col]);
+            for (int r = col + 1; r < n; r++) {
+                double v = Math.abs(sys[r * width + col]);
+                if (v > best) {
+                    best = v;
+                    pivot = r;
+                }
+            }
+            if (best < 1e-12) {
+                return false;
+            }
+            if (pivot != col) {
+                int p = pivot * width;
+                int q = col * width;
+                for (int c = col; c < width; c++) {
+                    double tmp = sys[p + c];
+                    sys[p + c] = sys[q + c];
+                    sys[q + c] = tmp;
+                }
+            }
+            int top = col * width;
+            double inv = 1.0 / sys[top + col];
+            for (int r = col + 1; r < n; r++) {
+                int row = r * width;
+                double factor = sys[row + col] * inv;
+                if (factor == 0) continue;
+                for (int c = col; c < width; c++) {
+                    sys[row + c] -= factor * sys[top + c];
+                }
+            }
+        }
+        // back substitution
+        for (int r = n - 1; r >= 0; r--) {
+            int row = r * width;
+            double sum = sys[row + n];
+            for (int c = r + 1; c < n; c++) {
+                sum -= sys[row + c] * out[c];
+            }
+            out[r] = sum / sys[row + r];
+        }
+        return true;
+    }
+
+    /** Checks every (row support, column support) pair for one range of row supports. */
+    private static class SupportTask extends RecursiveTask<List<StrategyProfile>> {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] a;
+        private final double[] b;
+        private final int rows;
+        private final int cols;
+        private final int k;
+        private final int[] rowSupports;
+        private final int[] colSupports;
+        // usefulRows[s] masks the rows not dominated against colSupports[s]
+        private final int[] usefulRows;
+        private final int lo;
+        private final int hi;
+
+        SupportTask(double[] a, double[] b, int rows, int cols, int k,
+                    int[] rowSupports, int[] colSupports, int[] usefulRows, int lo, int hi) {
+            this.a = a;
+            this.b = b;
+            this.rows = rows;
+            this.cols = cols;
+            this.k = k;
+            this.rowSupports = rowSupports;
+            this.colSupports = colSupports;
+            this.usefulRows = usefulRows;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected List<StrategyProfile> compute() {
+            if (hi - lo == 1 || (long) (hi - lo) * colSupports.length <= LEAF_WORK) {
+                return computeDirectly();
+            }
+            int mid = (lo + hi) >>> 1;
+            SupportTask left = new SupportTask(a, b, rows, cols, k, rowSupports, colSupports, usefulRows, lo, mid);
+            SupportTask right = new SupportTask(a, b, rows, cols, k, rowSupports, colSupports, usefulRows, mid, hi);
+            left.fork();
+            List<StrategyProfile> found = right.compute();
+            List<StrategyProfile> leftFound = left.join();
+            leftFound.addAll(found);
+            return leftFound;
+        }
+
+        private List<StrategyProfile> computeDirectly() {
+            List<StrategyProfile> found = new ArrayList<>();
+            // scratch space reused for every support pair in this range
+            int n = k + 1;
+            double[] sys = new double[n * (n + 1)];
+            double[] x = new double[n];
+            double[] y = new double[n];
+            int[] rowIdx = new int[k];
+            int[] colIdx = new int[k];
+
+            for (int s = lo; s < hi; s++) {
+                int rowMask = rowSupports[s];
+                toIndices(rowMask, rowIdx);
+                int usefulCols = undominatedCols(b, rows, cols, rowMask);
+                for (int t = 0; t < colSupports.length; t++) {
+                    int colMask = colSupports[t];
+                    // skip supports that contain a move the other support makes dominated
+                    if ((colMask & ~usefulCols) != 0 || (rowMask & ~usefulRows[t]) != 0) continue;
+                    toIndices(colMask, colIdx);
+
+                    // P1's mix over the row support must make P2 indifferent across the column support
+                    for (int e = 0; e < k; e++) {
+                        int row = e * (n + 1);
+                        for (int i = 0; i < k; i++) {
+                            sys[row + i] = b[rowIdx[i] * cols + colIdx[e]];
+                        }
+                        sys[row + k] = -1;
+                        sys[row + n] = 0;
+                    }
+                    fillSumRow(sys, k);
+                    if (!solveInPlace(sys, n, x) || !allPositive(x, k)) continue;
+                    double v = x[k];
+                    if (!noBetterColumn(x, rowIdx, colMask, v)) continue;
+
+                    // P2's mix over the column support must make P1 indifferent across the row support
+                    for (int e = 0; e < k; e++) {
+                        int row = e * (n + 1);
+                        int base = rowIdx[e] * cols;
+                        for (int j = 0; j < k; j++) {
+                            sys[row + j] = a[base + colIdx[j]];
+                        }
+                        sys[row + k] = -1;
+                        sys[row + n] = 0;
+                    }
+                    fillSumRow(sys, k);
+                    if (!solveInPlace(sys, n, y) || !allPositive(y, k)) continue;
+                    double u = y[k];
+                    if (!noBetterRow(y, colIdx, rowMask, u)) continue;
+
+                    double[] p1 = new double[rows];
+                    double[] p2 = new double[cols];
+                    for (int i = 0; i < k; i++) {
+                        p1[rowIdx[i]] = x[i];
+                        p2[colIdx[i]] = y[i];
+                    }
+                    found.add(new StrategyProfile(p1, p2, u, v));
+                }
+            }
+            return found;
+        }
+
+        /** Last equation of the system: the probabilities add up to 1. */
+        private void fillSumRow(double[] sys, int k) {
+            int row = k * (k + 2);
+            for (int i = 0; i < k; i++) {
+                sys[row + i] = 1;
+            }
+            sys[row + k] = 0;
+            sys[row + k + 1] = 1;
+        }
+
+        private static boolean allPositive(double[] probs, int k) {
+            for (int i = 0; i < k; i++) {
+                if (probs[i] <= EPS) return false;
+            }
+            return true;
+        }
+
+        /** True if no column outside the support pays P2 more than v against x. */
+        private boolean noBetterColumn(double[] x, int[] rowIdx, int colMask, double v) {
+            for (int c = 0; c < cols; c++) {
+                if ((colMask & (1 << c)) != 0) continue;
+                double payoff = 0;
+                for (int i = 0; i < k; i++) {
+                    payoff += x[i] * b[rowIdx[i] * cols + c];
+                }
+                if (payoff > v + EPS) return false;
+            }
+            return true;
+        }
+
+        /** True if no row outside the support pays P1 more than u against y. */
+        private boolean noBetterRow(double[] y, int[] colIdx, int rowMask, double u) {
+            for (int r = 0; r < rows; r++) {
+                if ((rowMask & (1 << r)) != 0) continue;
+                int base = r * cols;
+                double payoff = 0;
+                for (int j = 0; j < k; j++) {
+                    payoff += y[j] * a[base + colIdx[j]];
+                }
+                if (payoff > u + EPS) return false;
+            }
+            return true;
+        }
+
+        private static void toIndices(int mask, int[] out) {
+            int i = 0;
+            while (mask != 0) {
+                out[i++] = Integer.numberOfTrailingZeros(mask);
+                mask &= mask - 1;
+            }
+        }
+    }
+}
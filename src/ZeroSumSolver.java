@@ -0,0 +1,510 @@
+import java.util.Arrays;
+
+/**
+ * Solves constant-sum games (where P1's and P2's payoffs add up to the same
+ * number in every square) as a linear program with a dense revised simplex
+ * method. In such a game every equilibrium gives P1 the same payoff, the
+ * value of the game, and P1's equilibrium strategies are exactly the ones
+ * that guarantee it.
+ *
+ * After rescaling P1's payoffs into [1, 2] (matrix A), the
+ * program is: maximize sum(w) subject to A w <= 1 and w >= 0. At the optimum
+ * the value is 1 / sum(w), P2's strategy is w times the value and P1's is the
+ * dual solution times the value. With the slacks as the starting basis the
+ * program starts out feasible, so no phase 1 is needed.
+ *
+ * The inverse of the basis is kept as a dense rows x rows array, stored by
+ * column so that every O(rows^2) step of a pivot is a loop over contiguous
+ * memory, and updated with every pivot. The entering variable is picked by
+ * Devex pricing (reduced cost scaled by an estimate of how far the basis
+ * moves), which takes several times fewer pivots than the largest reduced
+ * cost on these dense programs; the reduced costs themselves are updated
+ * from the pivot row rather than recomputed. setP1Payoff keeps it (with a
+ * rank-one update when the edited column is basic) so that the next solve
+ * starts from the previous optimal basis, which after a small edit is
+ * usually a few pivots away from the new optimum. If the edit leaves that
+ * basis infeasible, a phase 1 from it first drives the negative basic values
+ * back up to 0.
+ */
+public class ZeroSumSolver {
+    private static final double EPS = 1e-9;
+    // pivots between recomputing the basic values from the inverse, to stop rounding errors piling up
+    private static final int REFRESH_INTERVAL = 64;
+    // pivots without progress before switching to Bland's rule, which cannot cycle
+    private static final int DEGENERATE_LIMIT = 50;
+
+    private final int rows;
+    private final int cols;
+    private final int constantSum;
+    // P1's payoffs, 0-indexed row-major
+    private final int[] payoffs;
+    // payoffs rescaled into [1, 2], also row-major: 1 + (payoff - minPayoff) * scale
+    private final double[] shifted;
+    private int minPayoff;
+    private double scale;
+
+    // variables 0..cols-1 are w, cols..cols+rows-1 are the slacks
+    private final int[] basis;
+    private final int[] positionOf;
+    // inverse[j * rows + i] is entry (i, j) of the basis inverse
+    private final double[] inverse;
+    private final double[] basicValues;
+    private final double[] duals;
+    // reduced costs of the w variables (the slacks' are minus the duals)
+    private final double[] costs;
+    // Devex reference weights of every variable, and the pivot row of the w variables
+    private final double[] weights;
+    private final double[] pivotRow;
+    private final double[] column;
+    private final double[] direction;
+    private boolean warm;
+    private long pivots;
+
+    /**
+     * Copies the game's payoffs. Throws IllegalArgumentException if the game
+     * is not constant-sum.
+     */
+    public ZeroSumSolver(BimatrixGame matrix) {
+        rows = matrix.getNumRows();
+        cols = matrix.getNumCols();
+        constantSum = matrix.getP1Payoff(1, 1) + matrix.getP2Payoff(1, 1);
+        payoffs = new int[rows * cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                payoffs[r * cols + c] = matrix.getP1Payoff(r + 1, c + 1);
+                if (payoffs[r * cols + c] + matrix.getP2Payoff(r + 1, c + 1) != constantSum) {
+                    throw new IllegalArgumentException("Game is not constant-sum");
+                }
+            }
+        }
+        shifted = new double[rows * cols];
+        basis = new int[rows];
+        positionOf = new int[cols + rows];
+        inverse = new double[rows * rows];
+        basicValues = new double[rows];
+        duals = new double[rows];
+        costs = new double[cols];
+        weights = new double[cols + rows];
+        pivotRow = new double[cols];
+        column = new double[rows];
+        direction = new double[rows];
+        fillShifted();
+    }
+
+    /** Number of pivots done by all solves so far. */
+    public long getPivots() {
+        return pivots;
+    }
+
+    /**
+     * Returns optimal strategies for both players; the profile's payoffs are
+     * the value of the game for P1 and the constant sum minus it for P2.
+     * Returns null only if rounding errors keep the simplex method from
+     * finishing, which does not happen on reasonably sized payoffs.
+     */
+    public StrategyProfile solve() {
+        if (!warm || !restoreFeasibility()) {
+            coldStart();
+        }
+        warm = false;
+        int degenerate = 0;
+        int sinceRefresh = 0;
+        double objective = objective();
+        long maxPivots = 50L * (rows + cols) + 1000;
+        for (long step = 0; step < maxPivots; step++) {
+            int entering = price(degenerate >= DEGENERATE_LIMIT);
+            if (entering < 0) {
+                warm = true;
+                return buildProfile();
+            }
+            computeDirection(entering);
+            int leavingRow = ratioTest();
+            if (leavingRow < 0) {
+                // cannot happen while every shifted payoff is positive
+                return null;
+            }
+            double cost = entering < cols ? costs[entering] : -duals[entering - cols];
+            updatePricing(entering, leavingRow, cost);
+            pivot(entering, leavingRow, cost);
+            if (++sinceRefresh == REFRESH_INTERVAL) {
+                refreshValues();
+                computeCosts();
+                sinceRefresh = 0;
+            }
+            double newObjective = objective();
+            degenerate = newObjective > objective + EPS ? 0 : degenerate + 1;
+            objective = newObjective;
+        }
+        return null;
+    }
+
+    /**
+     * Changes P1's payoff in the given square (counting from 1), and P2's to
+     * the constant sum minus it. The current basis is kept so that the next
+     * solve can start from it.
+     */
+    public void setP1Payoff(int row, int col, int payoff) {
+        int r = row - 1;
+        int c = col - 1;
+        if (payoff == payoffs[r * cols + c]) {
+            return;
+        }
+        double delta = (double) payoff - payoffs[r * cols + c];
+        payoffs[r * cols + c] = payoff;
+        if (payoff < minPayoff) {
+            // the rescaled payoffs would drop below 1, so rescale them all and start over
+            fillShifted();
+            warm = false;
+            return;
+        }
+        delta *= scale;
+        shifted[r * cols + c] += delta;
+        int k = positionOf[c];
+        if (!warm) {
+            return;
+        }
+        if (k < 0) {
+            // a nonbasic column does not affect the basis, only its own reduced cost
+            costs[c] -= duals[r] * delta;
+            return;
+        }
+
+        // column k of the basis changed by delta in row r, so by Sherman-Morrison
+        // the inverse loses (column r of the inverse) * (row k of the inverse) * delta / denominator
+        double denominator = 1 + delta * inverse[r * rows + k];
+        if (Math.abs(denominator) < EPS) {
+            warm = false;
+            return;
+        }
+        System.arraycopy(inverse, r * rows, column, 0, rows);
+        double ratio = delta / denominator;
+        for (int j = 0; j < rows; j++) {
+            int base = j * rows;
+            double factor = inverse[base + k] * ratio;
+            if (factor == 0) continue;
+            for (int i = 0; i < rows; i++) {
+                inverse[base + i] -= factor * column[i];
+            }
+        }
+        // the basis may now be slightly infeasible; solve() repairs that before optimizing
+        refreshValues();
+        computeCosts();
+    }
+
+    /**
+     * Rescales the payoffs into [1, 2]. Like in LemkeHowsonSolver, a positive
+     * affine rescaling keeps the optimal strategies the same, and entries of
+     * similar size keep the pivoting well conditioned.
+     */
+    private void fillShifted() {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int payoff : payoffs) {
+            min = Math.min(min, payoff);
+            max = Math.max(max, payoff);
+        }
+        minPayoff = min;
+        scale = max > min ? 1.0 / ((double) max - min) : 1;
+        for (int i = 0; i < payoffs.length; i++) {
+            shifted[i] = 1 + ((double) payoffs[i] - min) * scale;
+        }
+    }
+
+    /**
+     * Phase 1 from the current basis: while some basic values are negative,
+     * pivots to increase their sum, never letting a nonnegative one go
+     * negative. Returns false if that gets stuck, in which case the caller
+     * starts over from the slack basis.
+     */
+    private boolean restoreFeasibility() {
+        long maxPivots = 2L * (rows + cols);
+        for (long step = 0; step < maxPivots; step++) {
+            // phase 1 duals: the sum of the inverse's rows for the infeasible basic variables
+            Arrays.fill(column, 0);
+            boolean feasible = true;
+            for (int j = 0; j < rows; j++) {
+                int base = j * rows;
+                double dual = 0;
+                for (int i = 0; i < rows; i++) {
+                    if (basicValues[i] < -EPS) {
+                        dual += inverse[base + i];
+                        feasible = false;
+                    }
+                }
+                column[j] = dual;
+            }
+            if (feasible) {
+                Arrays.fill(weights, 1);
+                return true;
+            }
+
+            // entering: the nonbasic variable that raises the infeasible values fastest
+            Arrays.fill(pivotRow, 0);
+            for (int r = 0; r < rows; r++) {
+                double dual = column[r];
+                if (dual == 0) continue;
+                int base = r * cols;
+                for (int c = 0; c < cols; c++) {
+                    pivotRow[c] -= dual * shifted[base + c];
+                }
+            }
+            int entering = -1;
+            double bestRate = EPS;
+            for (int c = 0; c < cols; c++) {
+                if (positionOf[c] < 0 && pivotRow[c] > bestRate) {
+                    entering = c;
+                    bestRate = pivotRow[c];
+                }
+            }
+            for (int r = 0; r < rows; r++) {
+                if (positionOf[cols + r] < 0 && -column[r] > bestRate) {
+                    entering = cols + r;
+                    bestRate = -column[r];
+                }
+            }
+            if (entering < 0) {
+                return false;
+            }
+
+            // leaving: the first feasible value to hit 0, or infeasible value to reach 0
+            computeDirection(entering);
+            int leavingRow = -1;
+            double bestRatio = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < rows; i++) {
+                double ratio;
+                if (basicValues[i] >= -EPS && direction[i] > EPS) {
+                    ratio = Math.max(0, basicValues[i]) / direction[i];
+                } else if (basicValues[i] < -EPS && direction[i] < -EPS) {
+                    ratio = basicValues[i] / direction[i];
+                } else {
+                    continue;
+                }
+                if (ratio < bestRatio) {
+                    leavingRow = i;
+                    bestRatio = ratio;
+                }
+            }
+            if (leavingRow < 0) {
+                return false;
+            }
+            double cost = entering < cols ? costs[entering] : -duals[entering - cols];
+            pivot(entering, leavingRow, cost);
+            computeCosts();
+        }
+        return false;
+    }
+
+    /** Starts from the slack basis, where the inverse is the identity and every slack is 1. */
+    private void coldStart() {
+        Arrays.fill(positionOf, -1);
+        Arrays.fill(inverse, 0);
+        for (int i = 0; i < rows; i++) {
+            basis[i] = cols + i;
+            positionOf[cols + i] = i;
+            inverse[i * rows + i] = 1;
+        }
+        Arrays.fill(basicValues, 1);
+        Arrays.fill(duals, 0);
+        Arrays.fill(costs, 1);
+        Arrays.fill(weights, 1);
+    }
+
+    /** Recomputes the basic values (inverse times 1) and the duals (costs times inverse). */
+    private void refreshValues() {
+        Arrays.fill(basicValues, 0);
+        for (int j = 0; j < rows; j++) {
+            int base = j * rows;
+            double dual = 0;
+            for (int i = 0; i < rows; i++) {
+                basicValues[i] += inverse[base + i];
+                // only the w variables have a cost (1)
+                if (basis[i] < cols) {
+                    dual += inverse[base + i];
+                }
+            }
+            duals[j] = dual;
+        }
+    }
+
+    private double objective() {
+        double total = 0;
+        for (int i = 0; i < rows; i++) {
+            if (basis[i] < cols) {
+                total += basicValues[i];
+            }
+        }
+        return total;
+    }
+
+    /** Recomputes the reduced costs 1 - duals * A a row at a time, skipping rows whose dual is 0. */
+    private void computeCosts() {
+        Arrays.fill(costs, 1);
+        for (int r = 0; r < rows; r++) {
+            double dual = duals[r];
+            if (dual == 0) continue;
+            int base = r * cols;
+            for (int c = 0; c < cols; c++) {
+                costs[c] -= dual * shifted[base + c];
+            }
+        }
+    }
+
+    /**
+     * Returns a nonbasic variable whose reduced cost is positive, or -1 if
+     * there is none and the basis is optimal. Picks the largest squared
+     * reduced cost over Devex weight, or the first positive one under Bland's
+     * rule.
+     */
+    private int price(boolean bland) {
+        int best = -1;
+        double bestScore = 0;
+        for (int c = 0; c < cols; c++) {
+            double cost = costs[c];
+            if (cost > EPS && positionOf[c] < 0) {
+                if (bland) return c;
+                if (cost * cost > bestScore * weights[c]) {
+                    best = c;
+                    bestScore = cost * cost / weights[c];
+                }
+            }
+        }
+        for (int r = 0; r < rows; r++) {
+            // a slack's reduced cost is minus its dual
+            double cost = -duals[r];
+            if (cost > EPS && positionOf[cols + r] < 0) {
+                if (bland) return cols + r;
+                if (cost * cost > bestScore * weights[cols + r]) {
+                    best = cols + r;
+                    bestScore = cost * cost / weights[cols + r];
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Before a pivot, moves the w variables' reduced costs along the pivot row
+     * (row leavingRow of the inverse times A) and updates the Devex weights.
+     */
+    private void updatePricing(int entering, int leavingRow, double cost) {
+        Arrays.fill(pivotRow, 0);
+        for (int j = 0; j < rows; j++) {
+            double entry = inverse[j * rows + leavingRow];
+            if (entry == 0) continue;
+            int base = j * cols;
+            for (int c = 0; c < cols; c++) {
+                pivotRow[c] += entry * shifted[base + c];
+            }
+        }
+        double pivot = direction[leavingRow];
+        double enteringWeight = weights[entering];
+        for (int c = 0; c < cols; c++) {
+            double ratio = pivotRow[c] / pivot;
+            // basic variables other than the leaving one have 0 in the pivot row, so this only touches nonbasic ones
+            costs[c] -= cost * ratio;
+            if (positionOf[c] < 0) {
+                weights[c] = Math.max(weights[c], ratio * ratio * enteringWeight);
+            }
+        }
+        for (int r = 0; r < rows; r++) {
+            if (positionOf[cols + r] < 0) {
+                double ratio = inverse[r * rows + leavingRow] / pivot;
+                weights[cols + r] = Math.max(weights[cols + r], ratio * ratio * enteringWeight);
+            }
+        }
+        weights[basis[leavingRow]] = Math.max(enteringWeight / (pivot * pivot), 1);
+        if (entering < cols) {
+            costs[entering] = 0;
+        }
+    }
+
+    /** direction = inverse times the entering variable's column. */
+    private void computeDirection(int entering) {
+        if (entering >= cols) {
+            System.arraycopy(inverse, (entering - cols) * rows, direction, 0, rows);
+            return;
+        }
+        Arrays.fill(direction, 0);
+        for (int j = 0; j < rows; j++) {
+            double entry = shifted[j * cols + entering];
+            int base = j * rows;
+            for (int i = 0; i < rows; i++) {
+                direction[i] += entry * inverse[base + i];
+            }
+        }
+    }
+
+    /** Row of the variable that leaves the basis, or -1 if the entering variable is unbounded. */
+    private int ratioTest() {
+        int best = -1;
+        double bestRatio = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < rows; i++) {
+            if (direction[i] > EPS) {
+                double ratio = Math.max(0, basicValues[i]) / direction[i];
+                if (ratio < bestRatio - EPS) {
+                    best = i;
+                    bestRatio = ratio;
+                } else if (ratio <= bestRatio + EPS && basis[i] < basis[best]) {
+                    // ties go to the lowest variable, as Bland's rule needs
+                    best = i;
+                }
+            }
+        }
+        return best;
+    }
+
+    /** Swaps the entering variable into the basis at leavingRow and updates the inverse, values and duals. */
+    private void pivot(int entering, int leavingRow, double cost) {
+        double pivot = direction[leavingRow];
+        double step = basicValues[leavingRow] / pivot;
+        for (int i = 0; i < rows; i++) {
+            basicValues[i] -= direction[i] * step;
+        }
+        basicValues[leavingRow] = step;
+
+        // every column of the inverse gets the pivot row eliminated from it, and the
+        // duals move along the new pivot row by the entering variable's reduced cost
+        for (int j = 0; j < rows; j++) {
+            int base = j * rows;
+            double scaled = inverse[base + leavingRow] / pivot;
+            if (scaled == 0) continue;
+            for (int i = 0; i < rows; i++) {
+                inverse[base + i] -= direction[i] * scaled;
+            }
+            inverse[base + leavingRow] = scaled;
+            duals[j] += cost * scaled;
+        }
+
+        positionOf[basis[leavingRow]] = -1;
+        basis[leavingRow] = entering;
+        positionOf[entering] = leavingRow;
+        pivots++;
+    }
+
+    private StrategyProfile buildProfile() {
+        refreshValues();
+        double[] x = new double[rows];
+        double[] y = new double[cols];
+        double total = 0;
+        for (int i = 0; i < rows; i++) {
+            if (basis[i] < cols) {
+                y[basis[i]] = Math.max(0, basicValues[i]);
+                total += y[basis[i]];
+            }
+        }
+        double dualTotal = 0;
+        for (int r = 0; r < rows; r++) {
+            x[r] = Math.max(0, duals[r]);
+            dualTotal += x[r];
+        }
+        for (int c = 0; c < cols; c++) {
+            y[c] /= total;
+        }
+        for (int r = 0; r < rows; r++) {
+            x[r] /= dualTotal;
+        }
+        // by duality both totals are 1 / value; average them against rounding, then undo the rescaling
+        double value = (2 / (total + dualTotal) - 1) / scale + minPayoff;
+        return new StrategyProfile(x, y, value, constantSum - value);
+    }
+}
@@ -0,0 +1,42 @@
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Matrix-vector product using the incubating Vector API. It lives in its own
+ * module, the only one compiled with --add-modules jdk.incubator.vector, and
+ * ReplicatorDynamics loads it by name when it is on the class path and the
+ * JVM runs with that flag.
+ */
+final class VectorKernel implements ReplicatorDynamics.Kernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    /**
+     * out[i] = sum over j of matrix[i * n + j] * v[j], for i from 0 to m - 1,
+     * skipping (and setting to 0) the rows where rowShares[i] is 0. Fused
+     * multiply-adds and summing lane by lane round differently from the plain
+     * loop, so the products can differ from it in the last bits.
+     */
+    @Override
+    public void multiply(double[] matrix, int m, int n, double[] v, double[] rowShares, double[] out) {
+        int upper = SPECIES.loopBound(n);
+        for (int i = 0; i < m; i++) {
+            if (rowShares[i] == 0) {
+                out[i] = 0;
+                continue;
+            }
+            int base = i * n;
+            DoubleVector sum = DoubleVector.zero(SPECIES);
+            int j = 0;
+            for (; j < upper; j += SPECIES.length()) {
+                DoubleVector a = DoubleVector.fromArray(SPECIES, matrix, base + j);
+                sum = a.fma(DoubleVector.fromArray(SPECIES, v, j), sum);
+            }
+            double total = sum.reduceLanes(VectorOperators.ADD);
+            for (; j < n; j++) {
+                total += matrix[base + j] * v[j];
+            }
+            out[i] = total;
+        }
+    }
+}